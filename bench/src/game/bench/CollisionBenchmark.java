@@ -0,0 +1,55 @@
+package game.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import game.component.entities.Entity;
+import game.enums.Direction;
+
+/**
+ * Entity collision and movement for every entity in a zone, with more and more enemies to show how it scales.
+ * 
+ * @author Anthony DePaul
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CollisionBenchmark {
+
+	/** Directions checked for each entity */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * Entity.collision in every direction for every entity in the zone.
+	 */
+	@Benchmark
+	public void collision(PopulatedZoneState s, Blackhole bh) {
+		ArrayList<Entity> entities = s.current.entities;
+		for (int i = 0; i < entities.size(); i++)
+			for (Direction dir : DIRECTIONS)
+				bh.consume(entities.get(i).collision(dir));
+	}
+
+	/**
+	 * Moves every entity in the zone one step diagonally, back and forth every other call so nobody wanders off the zone.
+	 */
+	@Benchmark
+	public void move(PopulatedZoneState s) {
+		s.game.data.updateTick++;
+		int step = s.game.data.updateTick % 2 == 0 ? 1 : -1;
+		ArrayList<Entity> entities = s.current.entities;
+		for (int i = 0; i < entities.size(); i++)
+			entities.get(i).move(step, step);
+	}
+}
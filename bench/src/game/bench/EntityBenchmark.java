@@ -0,0 +1,88 @@
+package game.bench;
+
+import java.awt.Image;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import game.component.entities.Entity;
+import game.component.entities.enemies.Enemy;
+
+/**
+ * Per entity work done every update: enemy AI and the red damage tint.
+ * 
+ * @author Anthony DePaul
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EntityBenchmark {
+
+	/**
+	 * The images the entities in the zone are showing.
+	 */
+	@State(Scope.Benchmark)
+	public static class Images extends ZoneState {
+		/** One image from each entity that has one */
+		public Image[] images;
+
+		/**
+		 * Loads the zone and collects the images.
+		 */
+		@Override
+		protected void load() {
+			super.load();
+			ArrayList<Image> list = new ArrayList<Image>();
+			list.add(game.player.currentImage);
+			for (Entity e : current.entities) {
+				e.updateImage();
+				if (e.currentImage != null)
+					list.add(e.currentImage);
+			}
+			images = list.toArray(new Image[list.size()]);
+		}
+	}
+
+	/**
+	 * Enemy.update for every enemy in the zone.
+	 */
+	@Benchmark
+	public void enemyUpdate(PopulatedZoneState s) {
+		s.game.data.updateTick++;
+		ArrayList<Entity> entities = s.current.entities;
+		for (int i = 0; i < entities.size(); i++)
+			if (entities.get(i) instanceof Enemy)
+				entities.get(i).update();
+	}
+
+	/**
+	 * Entity.damageImage when every image is already in the tint cache.
+	 */
+	@Benchmark
+	public void damageImageCached(Images s, Blackhole bh) {
+		for (Image img : s.images)
+			bh.consume(Entity.damageImage(img));
+	}
+
+	/**
+	 * Entity.damageImage with an empty tint cache, so every image is tinted again.
+	 */
+	@Benchmark
+	public void damageImageUncached(Images s, Blackhole bh) {
+		Entity.damageTints.clear();
+		for (Image img : s.images)
+			bh.consume(Entity.damageImage(img));
+	}
+}
@@ -0,0 +1,35 @@
+package game.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * A zone with extra enemies added to see how entity code scales.
+ * 
+ * @author Anthony DePaul
+ */
+public class PopulatedZoneState extends ZoneState {
+
+	/** Enemies added on top of the ones the zone starts with */
+	@Param({ "0", "100", "1000" })
+	public int extraEnemies;
+
+	/**
+	 * Loads the zone and adds the enemies.
+	 */
+	@Override
+	protected void load() {
+		super.load();
+		fill(extraEnemies, zone);
+	}
+
+	/**
+	 * Puts the player back at the spawn before each iteration, in case they walked into another zone or the enemies all caught up to
+	 * them.
+	 */
+	@Setup(Level.Iteration)
+	public void respawn() {
+		enter();
+	}
+}
@@ -0,0 +1,71 @@
+package game.bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.Game;
+
+/**
+ * Drawing the entities of a zone onto an image the size of the screen.
+ * 
+ * @author Anthony DePaul
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RenderBenchmark {
+
+	/**
+	 * The image drawn on.
+	 */
+	@State(Scope.Thread)
+	public static class Canvas {
+		/** The image drawn on */
+		public BufferedImage image;
+		/** Graphics of the image */
+		public Graphics2D g;
+
+		/**
+		 * Creates the image.
+		 */
+		@Setup(Level.Trial)
+		public void create(PopulatedZoneState s) {
+			image = Game.createCompatibleImage(s.game.data.WIDTH, s.game.data.HEIGHT);
+			g = image.createGraphics();
+		}
+
+		/**
+		 * Frees the graphics.
+		 */
+		@TearDown(Level.Trial)
+		public void dispose() {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Game.renderEntities: sorts, animates and draws the entities on screen.
+	 */
+	@Benchmark
+	public void renderEntities(PopulatedZoneState s, Canvas c) {
+		s.game.data.updateTick++;
+		s.game.data.animationTick++;
+		s.game.renderEntities(c.g);
+	}
+}
@@ -0,0 +1,42 @@
+package game.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.enums.GameState;
+
+/**
+ * One full Game.update() with the player standing in the zone.
+ * 
+ * @author Anthony DePaul
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TickBenchmark {
+
+	/**
+	 * Game.update() and the tick counters the game loop moves along with it. Friendlies start scenes and enemies would kill the player
+	 * and send them to another zone, so the player is healed, kept in the zone and the game put back to PLAYING to always time a full
+	 * update of the zone.
+	 */
+	@Benchmark
+	public void update(PopulatedZoneState s) {
+		s.game.player.hp = s.game.player.maxhp;
+		if (s.game.data.currentZoneNumber != s.zone - 1)
+			s.enter();
+		s.game.data.status = GameState.PLAYING;
+		s.game.update();
+		s.game.data.updateTick++;
+		s.game.data.animationTick++;
+	}
+}
@@ -0,0 +1,132 @@
+package game.bench;
+
+import java.awt.Image;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.component.Zone;
+import game.component.ZoneChunks;
+import game.component.ZoneTemplate;
+import game.graphics.OpacityMask;
+import game.graphics.images.GraphicLoader;
+
+/**
+ * Loading a zone from its images and building its bottom layer or its chunks.
+ * 
+ * @author Anthony DePaul
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ZoneBenchmark {
+
+	/**
+	 * The images the zone is made from.
+	 */
+	@State(Scope.Benchmark)
+	public static class Sources extends ZoneState {
+		/** Images of the zone */
+		public Image top, bottom, layout;
+
+		/**
+		 * Loads the game and the images of the zone.
+		 */
+		@Override
+		protected void load() {
+			super.load();
+			top = GraphicLoader.getImage("zones/zone" + zone + "/top.png");
+			bottom = GraphicLoader.getImage("zones/zone" + zone + "/bottom.png");
+			layout = GraphicLoader.getImage("zones/zone" + zone + "/layout.png", false);
+		}
+	}
+
+	/**
+	 * A zone that hasn't built its bottom layer yet.
+	 */
+	@State(Scope.Thread)
+	public static class Unbuilt {
+		/** The new zone */
+		public Zone zone;
+
+		/**
+		 * Makes a new zone before each call.
+		 */
+		@Setup(Level.Invocation)
+		public void create(Sources s) {
+			zone = new Zone(s.top, s.bottom, s.layout, s.zone - 1, s.game);
+			// ZoneLoader makes the mask in the background with the images
+			zone.getTopMask();
+		}
+	}
+
+	/**
+	 * Zone.createLayout through the constructor: reads the layout image and creates the tiles and entities.
+	 */
+	@Benchmark
+	public Zone createLayout(Sources s) {
+		return new Zone(s.top, s.bottom, s.layout, s.zone - 1, s.game);
+	}
+
+	/**
+	 * ZoneTemplate reading the layout image into tiles and entity placements, without making the entities.
+	 */
+	@Benchmark
+	public ZoneTemplate parseLayout(Sources s) {
+		return new ZoneTemplate(s.layout, s.zone - 1, s.game);
+	}
+
+	/**
+	 * ZoneTemplate.load from the compiled layout.bin, for comparison with parseLayout (which doesn't include decoding the PNG).
+	 */
+	@Benchmark
+	public ZoneTemplate loadCompiled(ZoneState s) {
+		return ZoneTemplate.load(s.zone - 1, s.game);
+	}
+
+	/**
+	 * Zone.getBottomImage the first time, when the whole layer is drawn.
+	 */
+	@Benchmark
+	public Image bottomImageBuild(Unbuilt u) {
+		return u.zone.getBottomImage();
+	}
+
+	/**
+	 * ZoneChunks.prepare the first time, when only the chunks on screen are made (compare with bottomImageBuild).
+	 */
+	@Benchmark
+	public ZoneChunks chunksBuild(Unbuilt u, Sources s) {
+		ZoneChunks chunks = u.zone.getChunks();
+		chunks.prepare(u.zone.getLayers(), 1, 0, 0, s.game.data.WIDTH, s.game.data.HEIGHT);
+		return chunks;
+	}
+
+	/**
+	 * OpacityMask finding the empty and opaque tiles of the top layer, done in the background when a zone's images are loaded.
+	 */
+	@Benchmark
+	public OpacityMask topMask(Sources s) {
+		return new OpacityMask(s.top, s.game.data.TILE_RES);
+	}
+
+	/**
+	 * Zone.getBottomImage every other time, when nothing changed.
+	 */
+	@Benchmark
+	public Image bottomImageCached(ZoneState s) {
+		return s.current.getBottomImage();
+	}
+}
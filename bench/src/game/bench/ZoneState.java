@@ -0,0 +1,90 @@
+package game.bench;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import game.Game;
+import game.component.Tile;
+import game.component.Zone;
+import game.component.entities.enemies.BasicEnemy;
+import game.enums.GameState;
+
+/**
+ * A game loaded headless with the player standing in one of the shipped zones.
+ * 
+ * @author Anthony DePaul
+ */
+@State(Scope.Benchmark)
+public class ZoneState {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** Which zone folder to use (zone1 to zone13) */
+	@Param({ "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13" })
+	public int zone;
+
+	/** The game */
+	public Game game;
+	/** The zone the player is in */
+	public Zone current;
+
+	// --------------------------------------------------------- SETUP
+
+	/**
+	 * Sets up the state once per trial.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		load();
+	}
+
+	/**
+	 * Loads the game and puts the player in the zone. States that need more set up override this and call it first (JMH doesn't run
+	 * superclass setups first).
+	 */
+	protected void load() {
+		game = new Game();
+		game.waitForWorld();
+		enter();
+	}
+
+	/**
+	 * Puts the player back at a spawn in the zone and the game back to playing.
+	 */
+	public void enter() {
+		game.data.status = GameState.PLAYING;
+		current = game.data.getZone(zone - 1);
+		game.data.currentZoneNumber = zone - 1;
+		game.data.currentZone = current;
+		game.player.loc.setLocation(current.spawns.values().iterator().next());
+		game.player.lastLoc.setLocation(game.player.loc);
+	}
+
+	/**
+	 * Adds enemies to random open tiles inside the zone.
+	 * 
+	 * @param count
+	 * amount of enemies to add
+	 * @param seed
+	 * seed for where they go
+	 */
+	public void fill(int count, long seed) {
+		Random rand = new Random(seed);
+		int added = 0;
+		int tries = 0;
+		while (added < count && tries++ < count * 1000) {
+			int col = rand.nextInt(current.layout[0].length);
+			int row = rand.nextInt(current.layout.length);
+			boolean inside = col > 0 && row > 0 && col < current.layout[0].length - 1 && row < current.layout.length - 1;
+			if (inside && current.layout[row][col].type == Tile.Type.OPEN) {
+				current.addEntity(new BasicEnemy(game, col * game.data.TILE_RES + rand.nextInt(game.data.TILE_RES), row * game.data.TILE_RES + rand.nextInt(game.data.TILE_RES)));
+				added++;
+			}
+		}
+	}
+}
@@ -2,8 +2,8 @@ package game;
 
 import game.component.Tile;
 import game.component.Zone;
+import game.component.ZoneLoader;
 import game.enums.GameState;
-import game.graphics.images.GraphicLoader;
 import game.graphics.screens.Scene;
 
 import java.util.ArrayList;
@@ -86,21 +86,28 @@ public class Data {
 
 	/** Update the value of some variables */
 	public void update() {
-		// offsets for the screen
-		if (!GameLauncher.isApplet) {
-			frameXOffset = (int) ((GameLauncher.game.frame.getSize().width - (WIDTH * scale)) / 2);
-			frameYOffset = (int) ((GameLauncher.game.frame.getSize().height - (HEIGHT * scale)) / 2);
+		// offsets for the screen (no frame in an applet or when running headless)
+		if (game.frame != null) {
 			// sets the scale
-			double xScale = (double) GameLauncher.game.frame.getSize().width / WIDTH;
-			double yScale = (double) GameLauncher.game.frame.getSize().height / (HEIGHT);
+			double xScale = (double) game.frame.getSize().width / WIDTH;
+			double yScale = (double) game.frame.getSize().height / (HEIGHT);
 
 			if (xScale < yScale)
 				scale = xScale;
 			else
 				scale = yScale;
+			// whole numbers only (unless the screen is smaller than the game)
+			if (Game.integerScale && scale > 1)
+				scale = Math.floor(scale);
+
+			frameXOffset = (int) ((game.frame.getSize().width - (WIDTH * scale)) / 2);
+			frameYOffset = (int) ((game.frame.getSize().height - (HEIGHT * scale)) / 2);
 		}
-		// get current zone
-		currentZone = zones.get(currentZoneNumber);
+		// get current zone (once the world is loaded)
+		if (!game.loaded)
+			return;
+		currentZone = getZone(currentZoneNumber);
+		game.zoneLoader.entered(currentZone);
 		if (currentZoneNumber == zones.size() - 1 && !currentZone.containsBosses())
 			status = GameState.WIN;
 	}
@@ -111,27 +118,41 @@ public class Data {
 
 	// --------------------------------------------------------- VARIABLE DECLARATIONS
 
-	/** All of the zones */
+	/** All of the zones (null until they are first needed, use getZone) */
 	public ArrayList<Zone> zones = new ArrayList<Zone>();
 	/** The zone the player is in inside the currentWorld */
 	public int currentZoneNumber = 0;
 
 	/**
-	 * Initializes the zones and adds them to the worlds to be used.
+	 * Sets up the zones. Only the zone the player starts in is loaded, the others are loaded by getZone when they are first needed.
 	 */
 	public void initZones() {
-		zones.add(new Zone(GraphicLoader.getImage("zones/zone1/top.png"), GraphicLoader.getImage("zones/zone1/bottom.png"), GraphicLoader.getImage("zones/zone1/layout.png"), 0, game));
-
-		int counter = 2;
-		while (true) {
-			try {
-				zones.add(new Zone(GraphicLoader.getImage("zones/zone" + counter + "/top.png"), GraphicLoader.getImage("zones/zone" + counter + "/bottom.png"), GraphicLoader.getImage("zones/zone" + counter + "/layout.png"), counter - 1, game));
-				counter++;
-			} catch (Exception e) {
-				break;
-			}
+		if (game.zoneLoader == null)
+			game.zoneLoader = new ZoneLoader(game);
+		for (int i = 0; i < game.zoneLoader.count; i++)
+			zones.add(null);
+		currentZone = getZone(currentZoneNumber);
+		game.zoneLoader.entered(currentZone);
+		// build the first bottom image now instead of on the first frame (chunks are only made when they are drawn)
+		if (!Game.chunkedLayers())
+			currentZone.getBottomImage();
+	}
+
+	/**
+	 * Gets a zone, making it from its template the first time it is needed.
+	 * 
+	 * @param n
+	 * the zone number
+	 * @return
+	 * the zone
+	 */
+	public Zone getZone(int n) {
+		Zone zone = zones.get(n);
+		if (zone == null) {
+			zone = new Zone(game.zoneLoader.template(n), game);
+			zones.set(n, zone);
 		}
-		currentZone = zones.get(currentZoneNumber);
+		return zone;
 	}
 
 	/**
@@ -144,14 +165,14 @@ public class Data {
 		if (tp.tpZone < game.data.zones.size()) {
 			game.player.previousZone = currentZoneNumber;
 			currentZoneNumber = tp.tpZone;
-			currentZone = zones.get(currentZoneNumber);
+			currentZone = getZone(currentZoneNumber);
 
 			// custom spawn
-			if (zones.get(currentZoneNumber).spawns.get(game.player.previousZone + 1) != null)
-				game.player.loc.setLocation(zones.get(currentZoneNumber).spawns.get(game.player.previousZone + 1));
+			if (currentZone.spawns.get(game.player.previousZone + 1) != null)
+				game.player.loc.setLocation(currentZone.spawns.get(game.player.previousZone + 1));
 			// default spawn
 			else
-				game.player.loc.setLocation(zones.get(currentZoneNumber).spawns.get(0));
+				game.player.loc.setLocation(currentZone.spawns.get(0));
 		}
 	}
 }
@@ -1,26 +1,38 @@
 package game;
 
+import game.component.Zone;
+import game.component.ZoneChunks;
+import game.component.ZoneLoader;
 import game.component.entities.Entity;
 import game.component.entities.Player;
-import game.enums.Direction;
 import game.enums.GameState;
 import game.graphics.Camera;
+import game.graphics.FrameBuffer;
+import game.graphics.LayerCache;
+import game.graphics.OpacityMask;
+import game.graphics.Snapshot;
+import game.graphics.SnapshotBuffer;
 import game.graphics.images.GraphicLoader;
 import game.graphics.screens.ControlsMenu;
+import game.graphics.screens.LoadingScreen;
 import game.graphics.screens.LoseScreen;
 import game.graphics.screens.MainMenu;
 import game.graphics.screens.PauseMenu;
 import game.graphics.screens.WinScreen;
 
+import java.awt.AlphaComposite;
 import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.DisplayMode;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
 import java.awt.Image;
 import java.awt.RenderingHints;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
+import java.awt.Toolkit;
+import java.awt.Transparency;
 import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -29,7 +41,8 @@ import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -50,25 +63,66 @@ public class Game extends Canvas implements Runnable {
 
 	// --------------------------------------------------------- VARIABLE DECLARATIONS
 
-	/** Thread that updates and rendering uses */
+	/** If images are converted to the format the screen uses (-Dgame.compatibleImages=false to turn off and compare) */
+	public static boolean compatibleImages = !"false".equals(System.getProperty("game.compatibleImages"));
+	/** Most frames drawn per second while playing, 0 for no limit (-Dgame.fps=60, or -Dgame.fps=vsync to match the screen) */
+	public static int fpsCap = readFpsCap();
+	/** If entities are drawn between their last and current locations on frames between updates (-Dgame.interpolate=false to turn off) */
+	public static boolean interpolate = !"false".equals(System.getProperty("game.interpolate"));
+	/** If screens other than PLAYING are only drawn after an update instead of as fast as possible (-Dgame.idleMenus=false to turn off) */
+	public static boolean idleMenus = !"false".equals(System.getProperty("game.idleMenus"));
+	/** If rendering is done on its own thread from snapshots of each update (-Dgame.renderThread=true to turn on) */
+	public static boolean renderThread = "true".equals(System.getProperty("game.renderThread"));
+	/** If the zone is drawn straight onto the screen instead of through the level and scaled images (-Dgame.directRender=false to compare) */
+	public static boolean directRender = !"false".equals(System.getProperty("game.directRender"));
+	/** If the game is only scaled by whole numbers so every pixel is the same size (-Dgame.integerScale=true, black bars fill the rest) */
+	public static boolean integerScale = "true".equals(System.getProperty("game.integerScale"));
+	/** If the image counters are printed every second after the fps (-Dgame.debugCounters=true to turn on) */
+	public static boolean debugCounters = "true".equals(System.getProperty("game.debugCounters"));
+
+	/** Thread that updates and rendering uses (only updates if renderThread is on) */
 	private Thread thread;
+	/** Held by the simulation thread while updating when renderThread is on */
+	private final Object simLock = new Object();
+	/** Snapshots passed from the simulation thread to the render thread when renderThread is on */
+	private SnapshotBuffer snapshots = new SnapshotBuffer();
+	/** Frames drawn since the last fps count */
+	private AtomicInteger frames = new AtomicInteger();
 	/** Keeps track of the game's running state */
 	public boolean running = false;
 	/** If the game is resetting */
 	public boolean resetting = false;
+	/** If the zones and player are loaded (they load in the background while the main menu is up) */
+	public volatile boolean loaded = false;
+	/** Thread loading the zones and player */
+	private Thread worldLoader;
 	/** A counter used to slow/speed up animation */
 	public int animationTimer = 1;
+	/** Amount of updates since the game started, in every state and across resets */
+	public long ticks = 0;
+	/** How far the current frame is between the last update and the next one (0 to 1) */
+	public double interpolation = 1;
 	/** Window used by this canvas */
 	public JFrame frame;
 	/** Image displayed on screen. Will be translated by camera */
 	public BufferedImage level;
 	/** Final image displayed */
 	public BufferedImage scaled;
+	/** Keeps the level image between frames */
+	private FrameBuffer levelBuffer = new FrameBuffer(Transparency.OPAQUE);
+	/** Keeps the scaled image between frames */
+	private FrameBuffer scaledBuffer = new FrameBuffer(Transparency.TRANSLUCENT);
+	/** Accelerated copy of the bottom layer of the zone being drawn (direct rendering only) */
+	private LayerCache bottomLayer = new LayerCache();
+	/** Accelerated copy of the top layer of the zone being drawn (direct rendering only) */
+	private LayerCache topLayer = new LayerCache();
 
 	/** Keeps track of a lot of info */
 	public Data data;
-	/** Holds the images */
+	/** Holds the images (kept across resets) */
 	public GraphicLoader images;
+	/** Loads the zones when they are needed (kept across resets) */
+	public ZoneLoader zoneLoader;
 	/** The player used for the game */
 	public Player player;
 	/** Used to offset the world to the screen */
@@ -84,6 +138,8 @@ public class Game extends Canvas implements Runnable {
 	public LoseScreen lose;
 	/** The menu that displays controls */
 	public ControlsMenu controls;
+	/** The screen shown when play is pressed before the game is loaded */
+	public LoadingScreen loading;
 	/** The input class */
 	public Input input;
 
@@ -95,15 +151,16 @@ public class Game extends Canvas implements Runnable {
 	public Game() {
 		data = new Data(this);
 		images = new GraphicLoader(this);
-		data.initZones();
-		player = new Player(this);
 		camera = new Camera(this);
 
+		images.waitForMenus();
 		pause = new PauseMenu(this);
 		main = new MainMenu(this);
 		win = new WinScreen(this);
 		lose = new LoseScreen(this);
 		controls = new ControlsMenu(this);
+		loading = new LoadingScreen(this);
+		loadWorld();
 
 		setMaximumSize(new Dimension(data.WIDTH, data.HEIGHT));
 		setMinimumSize(new Dimension(data.WIDTH, data.HEIGHT));
@@ -117,19 +174,14 @@ public class Game extends Canvas implements Runnable {
 	}
 
 	/**
-	 * Resets the entire game.
+	 * Resets the entire game. The images and zone templates are kept, so only the zones, entities, player and menus are made again.
 	 */
 	public void reset() {
 		resetting = true;
-		try {
-			Thread.sleep(100);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
 
 		data = new Data(this);
-		images = new GraphicLoader(this);
 		data.initZones();
+		images.rewindAnimations();
 		player = new Player(this);
 		camera = new Camera(this);
 		pause = new PauseMenu(this);
@@ -150,6 +202,52 @@ public class Game extends Canvas implements Runnable {
 		resetting = false;
 	}
 
+	/**
+	 * Starts loading the zones and player in the background once the rest of the images are loaded.
+	 */
+	private void loadWorld() {
+		loaded = false;
+		final Data d = data;
+		final GraphicLoader img = images;
+		worldLoader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				img.waitForAll();
+				d.initZones();
+				player = new Player(Game.this);
+				loaded = true;
+			}
+		}, "World loader");
+		worldLoader.setDaemon(true);
+		worldLoader.start();
+	}
+
+	/**
+	 * Waits until the zones and player are loaded.
+	 */
+	public void waitForWorld() {
+		try {
+			worldLoader.join();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+		if (!loaded)
+			throw new IllegalStateException("The world failed to load");
+	}
+
+	/**
+	 * How much of the game is loaded.
+	 * 
+	 * @return
+	 * from 0 to 1
+	 */
+	public double loadingProgress() {
+		if (loaded)
+			return 1;
+		// the first zone counts as one more
+		return (double) images.loaded() / (images.total() + 1);
+	}
+
 	// ------------------------------------------------------------------------------------------------------------------------
 	// --------------------------------------------------------- MAIN ---------------------------------------------------------
 	// ------------------------------------------------------------------------------------------------------------------------
@@ -242,66 +340,178 @@ public class Game extends Canvas implements Runnable {
 	 */
 	@Override
 	public void run() {
+		if (renderThread) {
+			Thread renderer = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					renderLoop();
+				}
+			}, "Render");
+			renderer.setDaemon(true);
+			renderer.start();
+		}
+
 		long lastTime = System.nanoTime();
 		final double ns = 1000000000 / data.UPDATES_PER_SECOND;
 		double delta = 0;
+		final long frameNs = fpsCap > 0 ? 1000000000L / fpsCap : 0;
+		long nextFrame = lastTime;
 
-		int frames = 0;
 		int updates = 0;
 		long timer = System.currentTimeMillis();
 
 		while (running) {
-			if (!resetting) {
-				long now = System.nanoTime();
-				delta += (now - lastTime) / ns;
-				lastTime = now;
-
-				// on an update
-				while (delta >= 1) {
-					update();
-					updates++;
-
-					// overall update tick count
-					if (data.updateTick < Long.MAX_VALUE && data.status == GameState.PLAYING)
-						data.updateTick++;
-					else if (data.status == GameState.PLAYING)
-						data.updateTick = 0;
-
-					// overall animation tick count
-					if (data.animationTick < Long.MAX_VALUE && data.status == GameState.PLAYING)
-						if (animationTimer < data.AMIMATION_SPEED)
-							animationTimer++;
-						else {
-							data.animationTick++;
-							animationTimer = 1;
-						}
-					else if (data.status == GameState.PLAYING)
-						data.animationTick = 1;
-					delta--;
-				}
-				// slows down fps (acts strangely)
-				if (data.status == GameState.MAIN_MENU)
-					try {
-						Thread.sleep(2);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
+			// wait for the reset to finish
+			if (resetting) {
+				LockSupport.parkNanos(1000000);
+				lastTime = System.nanoTime();
+				continue;
+			}
+
+			long now = System.nanoTime();
+			delta += (now - lastTime) / ns;
+			lastTime = now;
+			boolean updated = false;
+
+			// on an update
+			while (delta >= 1) {
+				if (renderThread)
+					synchronized (simLock) {
+						tick();
+						snapshots.publish(this);
 					}
+				else
+					tick();
+				updates++;
+				updated = true;
+				delta--;
+			}
+
+			// nothing moves outside of PLAYING, so those screens only need a frame after an update
+			boolean idle = idleMenus && data.status != GameState.PLAYING;
+
+			if (!renderThread && (idle ? updated : frameNs == 0 || now >= nextFrame)) {
+				interpolation = interpolate && data.status == GameState.PLAYING ? delta : 1;
 				render();
-				frames++;
-
-				// fps and ups
-				if (System.currentTimeMillis() - timer > 1000) {
-					timer += 1000;
-					System.out.println(data.GAME_TITLE + " (" + updates + " ups, " + frames + " fps)");
-					frames = 0;
-					updates = 0;
-				}
-			} else
-				System.out.println("Resetting...");
+				frames.incrementAndGet();
+				nextFrame = Math.max(nextFrame + frameNs, now);
+			}
+
+			// fps and ups
+			if (System.currentTimeMillis() - timer > 1000) {
+				timer += 1000;
+				System.out.println(data.GAME_TITLE + " (" + updates + " ups, " + frames.getAndSet(0) + " fps)");
+				if (debugCounters)
+					System.out.println(FrameBuffer.totalAllocations + " frame buffers created, " + LayerCache.totalCopies + " layer copies, " + ZoneChunks.totalBuilds + " chunks made, "
+							+ (data.currentZone == null ? 0 : data.currentZone.getChunks().resident()) + " in the current zone");
+				updates = 0;
+			}
+
+			// sleep until the next update or frame
+			if (renderThread || idle || frameNs != 0) {
+				long nextUpdate = lastTime + (long) ((1 - delta) * ns);
+				long wake = renderThread || idle ? nextUpdate : Math.min(nextUpdate, nextFrame);
+				long wait = wake - System.nanoTime();
+				if (wait > 0)
+					LockSupport.parkNanos(wait);
+			}
 		}
 		stop();
 	}
 
+	/**
+	 * Draws frames from the newest snapshot until the game stops. Used by the render thread when renderThread is on.
+	 */
+	private void renderLoop() {
+		final double ns = 1000000000 / data.UPDATES_PER_SECOND;
+		final long frameNs = fpsCap > 0 ? 1000000000L / fpsCap : 0;
+		long nextFrame = System.nanoTime();
+		long lastTick = -1;
+
+		while (running) {
+			Snapshot snap = snapshots.latest();
+			if (snap == null || resetting) {
+				LockSupport.parkNanos(1000000);
+				continue;
+			}
+
+			long now = System.nanoTime();
+			boolean idle = idleMenus && snap.status != GameState.PLAYING;
+
+			if (idle ? snap.tick != lastTick : frameNs == 0 || now >= nextFrame) {
+				lastTick = snap.tick;
+				if (snap.status == GameState.PLAYING)
+					render(snap, interpolate ? Math.min((now - snap.time) / ns, 1) : 1);
+				else
+					// screens other than PLAYING read the game directly, so updates have to wait
+					synchronized (simLock) {
+						interpolation = 1;
+						render();
+					}
+				frames.incrementAndGet();
+				nextFrame = Math.max(nextFrame + frameNs, now);
+			}
+
+			// sleep until the next frame, or check for a new snapshot soon
+			if (idle)
+				LockSupport.parkNanos(1000000);
+			else if (frameNs != 0) {
+				long wait = nextFrame - System.nanoTime();
+				if (wait > 0)
+					LockSupport.parkNanos(wait);
+			}
+		}
+	}
+
+	/**
+	 * Updates the game once and counts the tick.
+	 */
+	void tick() {
+		update();
+		ticks++;
+
+		// overall update tick count
+		if (data.updateTick < Long.MAX_VALUE && data.status == GameState.PLAYING)
+			data.updateTick++;
+		else if (data.status == GameState.PLAYING)
+			data.updateTick = 0;
+
+		// overall animation tick count
+		if (data.animationTick < Long.MAX_VALUE && data.status == GameState.PLAYING)
+			if (animationTimer < data.AMIMATION_SPEED)
+				animationTimer++;
+			else {
+				data.animationTick++;
+				animationTimer = 1;
+			}
+		else if (data.status == GameState.PLAYING)
+			data.animationTick = 1;
+	}
+
+	/**
+	 * Reads the fps cap from -Dgame.fps. "vsync" uses the refresh rate of the screen (60 if it can't be found).
+	 * 
+	 * @return
+	 * the most frames to draw per second, 0 for no limit
+	 */
+	private static int readFpsCap() {
+		String fps = System.getProperty("game.fps", "0");
+		if (fps.equals("vsync")) {
+			if (!GraphicsEnvironment.isHeadless()) {
+				int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+				if (rate != DisplayMode.REFRESH_RATE_UNKNOWN)
+					return rate;
+			}
+			return 60;
+		}
+		try {
+			return Math.max(0, Integer.parseInt(fps));
+		} catch (NumberFormatException e) {
+			System.out.println("Invalid game.fps: " + fps);
+			return 0;
+		}
+	}
+
 	// --------------------------------------------------------- EACH TICK
 
 	/**
@@ -309,10 +519,12 @@ public class Game extends Canvas implements Runnable {
 	 */
 	public void update() {
 
+		input.update();
 		data.update();
 
 		switch (data.status) {
 		case PLAYING:
+			player.lastLoc.setLocation(player.loc);
 			player.update();
 			data.currentZone.updateEntities();
 			data.sceneActivate = false;
@@ -325,6 +537,10 @@ public class Game extends Canvas implements Runnable {
 		case MAIN_MENU:
 			main.update();
 			break;
+		case LOADING:
+			if (loaded)
+				data.status = GameState.PLAYING;
+			break;
 		case WIN:
 			win.update();
 			break;
@@ -340,6 +556,25 @@ public class Game extends Canvas implements Runnable {
 	// --------------------------------------------------------- GRAPHICS ---------------------------------------------------------
 	// ----------------------------------------------------------------------------------------------------------------------------
 
+	/**
+	 * Returns how many times bigger the zone layers are made ahead of time so they aren't scaled every frame. Only whole number scales in
+	 * integerScale mode on a screen that isn't scaled itself are made ahead of time, everything else is 1 (scaled while drawing).
+	 */
+	public int layerScale() {
+		if (!integerScale || frame == null || data.scale < 2 || data.scale != Math.floor(data.scale))
+			return 1;
+		if (!frame.getGraphicsConfiguration().getDefaultTransform().isIdentity())
+			return 1;
+		return (int) data.scale;
+	}
+
+	/**
+	 * Returns if the zone layers are drawn in chunks instead of whole (only the direct render draws chunks).
+	 */
+	public static boolean chunkedLayers() {
+		return directRender && ZoneChunks.chunkedLayers;
+	}
+
 	/**
 	 * Copies a BufferedImage. (did not write myself)
 	 * 
@@ -348,7 +583,7 @@ public class Game extends Canvas implements Runnable {
 	 * @return copied BufferedImage
 	 */
 	public static BufferedImage copyImage(Image img) {
-		BufferedImage b = new BufferedImage(img.getWidth(null), img.getHeight(null), BufferedImage.TYPE_INT_ARGB);
+		BufferedImage b = createCompatibleImage(img.getWidth(null), img.getHeight(null));
 		Graphics g = b.getGraphics();
 		g.drawImage(img, 0, 0, null);
 		g.dispose();
@@ -356,41 +591,78 @@ public class Game extends Canvas implements Runnable {
 	}
 
 	/**
-	 * Rotates an image and draws it. (did not write myself http://stackoverflow.com/questions/8639567/java-rotating-images)
+	 * Creates a blank translucent image in the format the screen uses so it can be drawn quickly.
 	 * 
-	 * @param image
-	 * BufferedImage to rotate
+	 * @param width
+	 * width of the image in pixels
+	 * @param height
+	 * height of the image in pixels
+	 * @return
+	 * the blank image
 	 */
-	public static void drawRotated(BufferedImage image, int x, int y, Direction dir, Graphics2D g2d) {
-		int degrees = 0;
-		switch (dir) {
-		case NORTH:
-			degrees = 0;
-			break;
-		case EAST:
-			degrees = 90;
-			break;
-		case SOUTH:
-			degrees = 180;
-			break;
-		case WEST:
-			degrees = 270;
-			break;
-		}
-		// Rotation information
-		double rotationRequired = Math.toRadians(degrees);
-		double locationX = image.getWidth() / 2;
-		double locationY = image.getHeight() / 2;
-		AffineTransform tx = AffineTransform.getRotateInstance(rotationRequired, locationX, locationY);
-		AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-		// Drawing the rotated image at the required drawing locations
-		g2d.drawImage(op.filter(image, null), x, y, null);
+	public static BufferedImage createCompatibleImage(int width, int height) {
+		return createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+
+	/**
+	 * Creates a blank image in the format the screen uses so it can be drawn quickly. If compatibleImages is off or there is no screen, a
+	 * TYPE_INT_ARGB image is created instead.
+	 * 
+	 * @param width
+	 * width of the image in pixels
+	 * @param height
+	 * height of the image in pixels
+	 * @param transparency
+	 * Transparency.OPAQUE, Transparency.BITMASK or Transparency.TRANSLUCENT
+	 * @return
+	 * the blank image
+	 */
+	public static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+		if (!compatibleImages || GraphicsEnvironment.isHeadless())
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration().createCompatibleImage(width, height, transparency);
+	}
+
+	/**
+	 * Converts an image to the format the screen uses so it can be drawn quickly. Returns the image itself if it is already in that format
+	 * or if compatibleImages is off.
+	 * 
+	 * @param img
+	 * the image to convert
+	 * @return
+	 * the converted image
+	 */
+	public static BufferedImage toCompatibleImage(BufferedImage img) {
+		if (!compatibleImages || GraphicsEnvironment.isHeadless())
+			return img;
+		GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+		if (img.getColorModel().equals(config.getColorModel(img.getTransparency())))
+			return img;
+
+		BufferedImage b = config.createCompatibleImage(img.getWidth(), img.getHeight(), img.getTransparency());
+		Graphics2D g = b.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(img, 0, 0, null);
+		g.dispose();
+		return b;
 	}
 
 	/**
 	 * Renders one frame of the game.
 	 */
 	public void render() {
+		render(null, interpolation);
+	}
+
+	/**
+	 * Renders one frame of the game.
+	 * 
+	 * @param snap
+	 * the snapshot to draw the zone and entities from, null to draw them from the game itself
+	 * @param t
+	 * how far the frame is between updates (0 to 1), only used with a snapshot
+	 */
+	private void render(Snapshot snap, double t) {
 
 		BufferStrategy bs = getBufferStrategy();
 		if (bs == null) {
@@ -399,8 +671,12 @@ public class Game extends Canvas implements Runnable {
 		}
 		Graphics2D mainG = (Graphics2D) bs.getDrawGraphics(); // actually displayed
 		mainG.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		// whole number scales keep pixel art sharp
+		if (integerScale)
+			mainG.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
 
-		switch (data.status) {
+		GameState status = snap == null ? data.status : snap.status;
+		switch (status) {
 		case PLAYING:
 		case SCENE:
 		case PAUSED:
@@ -409,8 +685,40 @@ public class Game extends Canvas implements Runnable {
 
 			// --- CONTENT
 
+			Zone zone;
+			ZoneLoader.Layers layers;
+			ZoneChunks chunks;
+			Image bottomImage;
+			int bottomVersion;
+			int bigX;
+			int bigY;
+			if (snap == null) {
+				zone = data.currentZone;
+				layers = zone.getLayers();
+				// chunks are cut from the layers when drawn
+				chunks = chunkedLayers() ? zone.getChunks() : null;
+				bottomImage = chunks != null ? null : zone.getBottomImage();
+				bottomVersion = zone.bottomVersion;
+				bigX = camera.bigXOffset();
+				bigY = camera.bigYOffset();
+			} else {
+				// only what the snapshot copied, the zone is being updated
+				zone = snap.zone;
+				layers = snap.layers;
+				chunks = snap.chunks;
+				bottomImage = snap.bottom;
+				bottomVersion = snap.bottomVersion;
+				bigX = camera.bigXOffset(zone, snap.player.drawX(t, data.TILE_RES));
+				bigY = camera.bigYOffset(zone, snap.player.drawY(t, data.TILE_RES));
+			}
+
+			if (directRender) {
+				renderDirect(mainG, status, zone, layers, chunks, bottomImage, bottomVersion, bigX, bigY, snap, t);
+				break;
+			}
+
 			// the entire level
-			level = new BufferedImage(data.currentZone.layout[0].length * data.TILE_RES, data.currentZone.layout.length * data.TILE_RES, BufferedImage.TYPE_INT_ARGB);
+			level = levelBuffer.get(zone.layout[0].length * data.TILE_RES, zone.layout.length * data.TILE_RES);
 			Graphics2D levelG = level.createGraphics();
 
 			levelG.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
@@ -421,29 +729,33 @@ public class Game extends Canvas implements Runnable {
 
 			BufferedImage botZone;
 			BufferedImage topZone;
+			Image topImage = layers.top;
 
-			if (data.currentZone.WIDTH < data.WIDTH)
-				if (data.currentZone.HEIGHT < data.HEIGHT) {
+			if (zone.WIDTH < data.WIDTH)
+				if (zone.HEIGHT < data.HEIGHT) {
 					// small x & y
-					botZone = ((BufferedImage) data.currentZone.getBottomImage()).getSubimage(0, 0, data.currentZone.WIDTH, data.currentZone.HEIGHT);
-					topZone = ((BufferedImage) data.currentZone.topImage).getSubimage(0, 0, data.currentZone.WIDTH, data.currentZone.HEIGHT);
+					botZone = ((BufferedImage) bottomImage).getSubimage(0, 0, zone.WIDTH, zone.HEIGHT);
+					topZone = ((BufferedImage) topImage).getSubimage(0, 0, zone.WIDTH, zone.HEIGHT);
 				} else {
 					// small x & big y
-					botZone = ((BufferedImage) data.currentZone.getBottomImage()).getSubimage(0, camera.bigYOffset(), data.currentZone.WIDTH, data.HEIGHT);
-					topZone = ((BufferedImage) data.currentZone.topImage).getSubimage(0, camera.bigYOffset(), data.currentZone.WIDTH, data.HEIGHT);
+					botZone = ((BufferedImage) bottomImage).getSubimage(0, bigY, zone.WIDTH, data.HEIGHT);
+					topZone = ((BufferedImage) topImage).getSubimage(0, bigY, zone.WIDTH, data.HEIGHT);
 				}
-			else if (data.currentZone.HEIGHT < data.HEIGHT) {
+			else if (zone.HEIGHT < data.HEIGHT) {
 				// big x & small y
-				botZone = ((BufferedImage) data.currentZone.getBottomImage()).getSubimage(camera.bigXOffset(), 0, data.WIDTH, data.currentZone.HEIGHT);
-				topZone = ((BufferedImage) data.currentZone.topImage).getSubimage(camera.bigXOffset(), 0, data.WIDTH, data.currentZone.HEIGHT);
+				botZone = ((BufferedImage) bottomImage).getSubimage(bigX, 0, data.WIDTH, zone.HEIGHT);
+				topZone = ((BufferedImage) topImage).getSubimage(bigX, 0, data.WIDTH, zone.HEIGHT);
 			} else {
 				// big x & y
-				botZone = ((BufferedImage) data.currentZone.getBottomImage()).getSubimage(camera.bigXOffset(), camera.bigYOffset(), data.WIDTH, data.HEIGHT);
-				topZone = ((BufferedImage) data.currentZone.topImage).getSubimage(camera.bigXOffset(), camera.bigYOffset(), data.WIDTH, data.HEIGHT);
+				botZone = ((BufferedImage) bottomImage).getSubimage(bigX, bigY, data.WIDTH, data.HEIGHT);
+				topZone = ((BufferedImage) topImage).getSubimage(bigX, bigY, data.WIDTH, data.HEIGHT);
 			}
 
 			levelG.drawImage(botZone, 0, 0, null);
-			renderEntities(levelG);
+			if (snap == null)
+				renderEntities(levelG);
+			else
+				snap.render(levelG, bigX, bigY, t, data.TILE_RES);
 			levelG.drawImage(topZone, 0, 0, null);
 
 			levelG.dispose();
@@ -455,10 +767,17 @@ public class Game extends Canvas implements Runnable {
 
 			// scaled image //
 			if (!GameLauncher.isApplet)
-				scaled = new BufferedImage(frame.getSize().width, frame.getSize().height, BufferedImage.TYPE_INT_ARGB);
+				scaled = scaledBuffer.get(frame.getSize().width, frame.getSize().height);
 			else
-				scaled = new BufferedImage((int) (data.WIDTH * GameLauncher.inputScale), (int) (data.HEIGHT * GameLauncher.inputScale), BufferedImage.TYPE_INT_ARGB);
+				scaled = scaledBuffer.get((int) (data.WIDTH * GameLauncher.inputScale), (int) (data.HEIGHT * GameLauncher.inputScale));
 			Graphics2D scaledG = scaled.createGraphics();
+			if (integerScale)
+				scaledG.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+			// clear last frame //
+			scaledG.setComposite(AlphaComposite.Clear);
+			scaledG.fillRect(0, 0, scaled.getWidth(), scaled.getHeight());
+			scaledG.setComposite(AlphaComposite.SrcOver);
 
 			// applet //
 			if (GameLauncher.isApplet)
@@ -478,12 +797,14 @@ public class Game extends Canvas implements Runnable {
 			}
 
 			// draw main //
-			scaledG.drawImage(level, camera.smallXOffset(), camera.smallYOffset(), null);
+			scaledG.drawImage(level, camera.smallXOffset(zone), camera.smallYOffset(zone), null);
 
 			// scene //
-			if (data.status == GameState.SCENE)
+			if (status == GameState.SCENE)
 				data.currentScene.render(scaledG);
 
+			scaledG.dispose();
+
 			mainG.drawImage(scaled, 0, 0, null);
 
 			// full screen overlay //
@@ -500,7 +821,7 @@ public class Game extends Canvas implements Runnable {
 			}
 
 			// paused //
-			if (data.status == GameState.PAUSED) {
+			if (status == GameState.PAUSED) {
 				if (!GameLauncher.isApplet) {
 					mainG.translate(data.frameXOffset, data.frameYOffset);
 					mainG.scale(data.scale, data.scale);
@@ -508,7 +829,7 @@ public class Game extends Canvas implements Runnable {
 				pause.render(mainG);
 			}
 			// win //
-			if (data.status == GameState.WIN) {
+			if (status == GameState.WIN) {
 				if (!GameLauncher.isApplet) {
 					mainG.translate(data.frameXOffset, data.frameYOffset);
 					mainG.scale(data.scale, data.scale);
@@ -517,7 +838,7 @@ public class Game extends Canvas implements Runnable {
 			}
 
 			// lose //
-			if (data.status == GameState.LOSE) {
+			if (status == GameState.LOSE) {
 				if (!GameLauncher.isApplet) {
 					mainG.translate(data.frameXOffset, data.frameYOffset);
 					mainG.scale(data.scale, data.scale);
@@ -553,35 +874,137 @@ public class Game extends Canvas implements Runnable {
 			}
 			controls.render(mainG);
 			break;
+		case LOADING:
+			// background //
+			mainG.setColor(new Color(0, 0, 0));
+
+			if (!GameLauncher.isApplet) {
+				mainG.fillRect(0, 0, frame.getSize().width, frame.getSize().height);
+				mainG.translate(data.frameXOffset, data.frameYOffset);
+				mainG.scale(data.scale, data.scale);
+			} else {
+				mainG.fillRect(0, 0, (int) (data.WIDTH * GameLauncher.inputScale), (int) (data.HEIGHT * GameLauncher.inputScale));
+			}
+			loading.render(mainG);
+			break;
 		}
 
 		mainG.dispose();
 		bs.show();
+		Toolkit.getDefaultToolkit().sync();
+	}
+
+	/**
+	 * Draws the zone, the entities and the screens over them straight onto the screen. The scale is applied to the graphics once and only the
+	 * part of each layer on screen is drawn, instead of drawing into the level and scaled images first.
+	 * 
+	 * @param g
+	 * the graphics of the screen
+	 * @param status
+	 * the state of the game being drawn
+	 * @param zone
+	 * the zone being drawn (only its size is used)
+	 * @param layers
+	 * the top and bottom images of the zone and its top mask
+	 * @param chunks
+	 * the layers of the zone cut into chunks, null to draw the whole layers
+	 * @param bottomImage
+	 * the bottom image of the zone with the locks drawn on it (not used when the layers are drawn in chunks)
+	 * @param bottomVersion
+	 * Zone.bottomVersion of the bottom image
+	 * @param bigX
+	 * how far the camera is from the left of the zone
+	 * @param bigY
+	 * how far the camera is from the top of the zone
+	 * @param snap
+	 * the snapshot to draw the entities from, null to draw them from the game itself
+	 * @param t
+	 * how far the frame is between updates (0 to 1), only used with a snapshot
+	 */
+	private void renderDirect(Graphics2D g, GameState status, Zone zone, ZoneLoader.Layers layers, ZoneChunks chunks, Image bottomImage, int bottomVersion, int bigX, int bigY, Snapshot snap, double t) {
+		// background //
+		g.setColor(new Color(0, 0, 0));
+		if (frame != null) {
+			g.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+			g.translate(data.frameXOffset, data.frameYOffset);
+			g.scale(data.scale, data.scale);
+		} else
+			g.fillRect(0, 0, getWidth(), getHeight());
+
+		// the part of the zone on screen (zones smaller than the screen are centered) //
+		int width = Math.min(zone.WIDTH, data.WIDTH);
+		int height = Math.min(zone.HEIGHT, data.HEIGHT);
+		int x = zone.WIDTH < data.WIDTH ? 0 : bigX;
+		int y = zone.HEIGHT < data.HEIGHT ? 0 : bigY;
+
+		Graphics2D levelG = (Graphics2D) g.create();
+		levelG.translate(camera.smallXOffset(zone), camera.smallYOffset(zone));
+		levelG.clipRect(0, 0, width, height);
+		levelG.setColor(new Color(0, 22, 51));
+		levelG.fillRect(0, 0, width, height);
+
+		// the layers are drawn from accelerated copies when possible
+		GraphicsConfiguration config = getGraphicsConfiguration();
+		int layerScale = layerScale();
+		if (chunks != null)
+			chunks.draw(levelG, config, layers, layerScale, false, x, y, width, height);
+		else
+			bottomLayer.draw(levelG, config, bottomImage, bottomVersion, x, y, width, height);
+		if (snap == null)
+			renderEntities(levelG);
+		else
+			snap.render(levelG, bigX, bigY, t, data.TILE_RES);
+		if (chunks != null)
+			chunks.draw(levelG, config, layers, layerScale, true, x, y, width, height);
+		else if (layers.topMask != null)
+			topLayer.draw(levelG, config, layers.top, 0, layers.topMask, 1, 0, 0, x, y, width, height);
+		else
+			topLayer.draw(levelG, config, layers.top, 0, x, y, width, height);
+		levelG.dispose();
+
+		// scene //
+		if (status == GameState.SCENE)
+			data.currentScene.render(g);
+		// paused //
+		if (status == GameState.PAUSED)
+			pause.render(g);
+		// win //
+		if (status == GameState.WIN)
+			win.render(g);
+		// lose //
+		if (status == GameState.LOSE)
+			lose.render(g);
 	}
 
 	/**
-	 * Draws all the entities in the current zone.
+	 * Draws all the entities in the current zone that are on screen.
 	 * 
 	 * @param g
 	 * the graphics object used to draw
 	 */
 	public void renderEntities(Graphics2D g) {
 
-		// update for animation
-		player.updateImage();
-		data.currentZone.updateEntityImages();
-
-		// list of ALL the entities in the current zone
-		ArrayList<Entity> tempEntities = new ArrayList<Entity>(data.currentZone.entities);
-		tempEntities.add(player);
-
-		// sort all entities by y position
-		Collections.sort(tempEntities);
-
-		// draw all the entities
-		for (Entity temp : tempEntities) {
-			g.drawImage(temp.currentImage, temp.locXToScreen(), temp.locYToScreen(), null);
-			temp.drawHp(g);
+		// the part of the zone on screen
+		int left = camera.bigXOffset();
+		int top = camera.bigYOffset();
+		int right = left + Math.min(data.WIDTH, data.currentZone.WIDTH);
+		int bottom = top + Math.min(data.HEIGHT, data.currentZone.HEIGHT);
+
+		// all entities sorted by y position
+		ArrayList<Entity> drawOrder = data.currentZone.getDrawOrder(player);
+		// entities under roofs are skipped
+		OpacityMask mask = data.currentZone.getTopMask();
+
+		// update for animation and draw the entities on screen
+		for (int i = 0; i < drawOrder.size(); i++) {
+			Entity temp = drawOrder.get(i);
+			if (temp == player || temp.inView(left, top, right, bottom)) {
+				temp.updateImage();
+				if (temp != player && temp.hiddenBy(mask))
+					continue;
+				g.drawImage(temp.currentImage, temp.locXToScreen(), temp.locYToScreen(), null);
+				temp.drawHp(g);
+			}
 		}
 	}
 }
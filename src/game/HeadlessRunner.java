@@ -0,0 +1,164 @@
+package game;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.util.Random;
+
+import game.enums.GameState;
+
+/**
+ * Runs the game without a window or rendering, as fast as it can, and reports updates per second. Used for measuring the simulation and
+ * for soak tests on machines without a screen.
+ * 
+ * @author Anthony DePaul
+ */
+public class HeadlessRunner {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** Keys the bot walks with */
+	private static final int[] WALK_KEYS = { KeyEvent.VK_W, KeyEvent.VK_D, KeyEvent.VK_S, KeyEvent.VK_A };
+	/** Keys the bot attacks with */
+	private static final int[] ATTACK_KEYS = { KeyEvent.VK_UP, KeyEvent.VK_RIGHT, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT };
+
+	/** The game being run */
+	private Game game;
+	/** Input played back from a file, null to use the bot */
+	private InputScript script;
+	/** Randomizes the bot */
+	private Random random;
+	/** Amount of times the game was won or lost and reset */
+	public int resets = 0;
+
+	// --------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Runs the game without a window or rendering.
+	 * 
+	 * @param s
+	 * input to play back, null to have a bot walk around and attack
+	 * @param seed
+	 * seed for the bot
+	 */
+	public HeadlessRunner(InputScript s, long seed) {
+		game = new Game();
+		game.waitForWorld();
+		script = s;
+		random = new Random(seed);
+
+		// a recording starts at the main menu like the real game, the bot starts playing
+		if (script == null)
+			game.data.status = GameState.PLAYING;
+		game.data.update();
+	}
+
+	// --------------------------------------------------------- RUNNING
+
+	/**
+	 * Updates the game a number of times without waiting between updates.
+	 * 
+	 * @param ticks
+	 * amount of updates
+	 */
+	public void run(long ticks) {
+		long start = System.nanoTime();
+		long reportTime = start;
+		long reportTicks = 0;
+
+		for (long i = 0; i < ticks; i++) {
+			if (script != null)
+				script.feed(game);
+			else
+				bot();
+
+			game.tick();
+
+			// the win and lose screens wait for a click, so start over
+			if (game.data.status == GameState.WIN || game.data.status == GameState.LOSE) {
+				game.reset();
+				resets++;
+				if (script == null)
+					game.data.status = GameState.PLAYING;
+			}
+
+			// ups
+			long now = System.nanoTime();
+			if (now - reportTime > 1000000000L) {
+				report("", i + 1 - reportTicks, now - reportTime);
+				reportTime = now;
+				reportTicks = i + 1;
+			}
+		}
+		report("total ", ticks, System.nanoTime() - start);
+	}
+
+	/**
+	 * Presses keys like a player would: walks in a random direction, jumps and attacks now and then.
+	 */
+	private void bot() {
+		long tick = game.ticks;
+		InputQueue queue = game.input.queue;
+
+		// change direction twice a second
+		if (tick % 15 == 0) {
+			for (int key : WALK_KEYS)
+				queue.addKey(InputQueue.KEY_RELEASED, key);
+			queue.addKey(InputQueue.KEY_PRESSED, WALK_KEYS[random.nextInt(WALK_KEYS.length)]);
+			if (random.nextBoolean())
+				queue.addKey(InputQueue.KEY_PRESSED, WALK_KEYS[random.nextInt(WALK_KEYS.length)]);
+		}
+
+		// attack (also closes scenes)
+		if (tick % 20 == 10) {
+			int key = ATTACK_KEYS[random.nextInt(ATTACK_KEYS.length)];
+			queue.addKey(InputQueue.KEY_PRESSED, key);
+			queue.addKey(InputQueue.KEY_RELEASED, key);
+		}
+
+		// jump
+		if (tick % 45 == 30) {
+			queue.addKey(InputQueue.KEY_PRESSED, KeyEvent.VK_SPACE);
+			queue.addKey(InputQueue.KEY_RELEASED, KeyEvent.VK_SPACE);
+		}
+	}
+
+	/**
+	 * Prints how fast the game was updated.
+	 * 
+	 * @param label
+	 * printed before the numbers
+	 * @param ticks
+	 * amount of updates
+	 * @param nanos
+	 * time the updates took
+	 */
+	private void report(String label, long ticks, long nanos) {
+		double seconds = nanos / 1e9;
+		Runtime runtime = Runtime.getRuntime();
+		System.out.println(label + ticks + " ticks in " + String.format("%.2f", seconds) + "s (" + String.format("%.0f", ticks / seconds) + " ups, "
+				+ game.data.status + ", zone " + game.data.currentZoneNumber + ", " + game.data.currentZone.entities.size() + " entities, " + resets + " resets, "
+				+ (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " MB used)");
+	}
+
+	// --------------------------------------------------------- MAIN
+
+	/**
+	 * Runs the game headless.
+	 * 
+	 * @param args
+	 * [ticks (default 18000, 10 minutes of game time)] [input file to play back (default a bot)]
+	 * @throws IOException
+	 * if the input file can't be read
+	 */
+	public static void main(String[] args) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+
+		long ticks = args.length > 0 ? Long.parseLong(args[0]) : 18000;
+		InputScript script = args.length > 1 ? new InputScript(args[1]) : null;
+		long seed = Long.getLong("game.seed", 0);
+
+		HeadlessRunner runner = new HeadlessRunner(script, seed);
+		runner.run(ticks);
+		System.exit(0);
+	}
+}
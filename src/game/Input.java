@@ -5,6 +5,9 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 
 import game.component.entities.environment.Item;
 import game.enums.Direction;
@@ -20,21 +23,102 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener {
 
 	/** The game this class will refer to */
 	private Game game;
+	/** Events waiting for the next update */
+	public InputQueue queue = new InputQueue();
+	/** How long the last handled event waited in the queue (nanoseconds) */
+	public long delay = 0;
+	/** Where handled events are written so InputScript can play them back (-Dgame.recordInput=file), null if not recording */
+	private static PrintWriter recording = openRecording(System.getProperty("game.recordInput"));
 
 	public Input(Game g) {
 		game = g;
 	}
 
+	// ------------------------------------------------------------------------------------------------------------------------
+	// --------------------------------------------------------- UPDATE -------------------------------------------------------
+	// ------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Handles every event that happened since the last update, in order. Called at the start of each update on the game thread.
+	 */
+	public void update() {
+		while (!queue.isEmpty()) {
+			delay = System.nanoTime() - queue.time();
+			if (recording != null)
+				record();
+			switch (queue.type()) {
+			case InputQueue.KEY_PRESSED:
+				pressed(queue.key());
+				break;
+			case InputQueue.KEY_RELEASED:
+				released(queue.key());
+				break;
+			case InputQueue.MOUSE:
+				allMouseEvents(queue.mouseEvent(), queue.mouseStatus());
+				break;
+			}
+			queue.next();
+		}
+	}
+
+	/**
+	 * Writes the next event in the queue to the recording, in the format InputScript reads.
+	 */
+	private void record() {
+		switch (queue.type()) {
+		case InputQueue.KEY_PRESSED:
+			recording.println(game.ticks + " press " + queue.key());
+			break;
+		case InputQueue.KEY_RELEASED:
+			recording.println(game.ticks + " release " + queue.key());
+			break;
+		case InputQueue.MOUSE:
+			recording.println(game.ticks + " mouse " + queue.mouseStatus() + " " + queue.mouseEvent().getX() + " " + queue.mouseEvent().getY());
+			break;
+		}
+	}
+
+	/**
+	 * Opens the file input is recorded to.
+	 * 
+	 * @param path
+	 * the file to write, null to not record
+	 * @return
+	 * the writer, null if not recording
+	 */
+	private static PrintWriter openRecording(String path) {
+		if (path == null)
+			return null;
+		try {
+			return new PrintWriter(new FileWriter(path), true);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
 	// ------------------------------------------------------------------------------------------------------------------------
 	// --------------------------------------------------------- KEYS ---------------------------------------------------------
 	// ------------------------------------------------------------------------------------------------------------------------
 
 	/**
-	 * Occurs when a button is pressed.
+	 * Occurs when a button is pressed. Handled on the next update.
 	 */
 	@Override
 	public void keyPressed(KeyEvent e) {
-		int key = e.getKeyCode();
+		queue.addKey(InputQueue.KEY_PRESSED, e.getKeyCode());
+	}
+
+	/**
+	 * Handles a button being pressed.
+	 * 
+	 * @param key
+	 * the key code of the button
+	 */
+	private void pressed(int key) {
+		// nothing uses keys until there is a player
+		if (!game.loaded)
+			return;
 
 		if (game.data.status == GameState.PAUSED) {
 			// wasd
@@ -146,11 +230,23 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener {
 	}
 
 	/**
-	 * Occurs when a button is released.
+	 * Occurs when a button is released. Handled on the next update.
 	 */
 	@Override
 	public void keyReleased(KeyEvent e) {
-		int key = e.getKeyCode();
+		queue.addKey(InputQueue.KEY_RELEASED, e.getKeyCode());
+	}
+
+	/**
+	 * Handles a button being released.
+	 * 
+	 * @param key
+	 * the key code of the button
+	 */
+	private void released(int key) {
+		// nothing uses keys until there is a player
+		if (!game.loaded)
+			return;
 
 		if (game.player.isAlive) {
 			if (key == KeyEvent.VK_W)
@@ -192,29 +288,29 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener {
 
 	@Override
 	public void mousePressed(MouseEvent e) {
-		allMouseEvents(e, Button.Status.PRESSED);
+		queue.addMouse(e, Button.Status.PRESSED);
 	}
 
 	@Override
 	public void mouseReleased(MouseEvent e) {
-		allMouseEvents(e, Button.Status.RELEASED);
+		queue.addMouse(e, Button.Status.RELEASED);
 	}
 
 	// --------------------------------------------------------- MOTION
 
 	@Override
 	public void mouseDragged(MouseEvent e) {
-		allMouseEvents(e, Button.Status.PRESSED);
+		queue.addMouse(e, Button.Status.PRESSED);
 	}
 
 	@Override
 	public void mouseMoved(MouseEvent e) {
 		// System.out.println("Mouse detected");
-		allMouseEvents(e, Button.Status.HOVERED);
+		queue.addMouse(e, Button.Status.HOVERED);
 	}
 
 	/**
-	 * Updates the buttons in the currently opened menu
+	 * Updates the buttons in the currently opened menu. Called from update() on the game thread
 	 * 
 	 * @param e
 	 * the MouseEvent that says where the mouse is
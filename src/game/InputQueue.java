@@ -0,0 +1,179 @@
+package game;
+
+import java.awt.event.MouseEvent;
+import java.util.concurrent.atomic.AtomicLong;
+
+import game.graphics.screens.Button;
+
+/**
+ * Holds input events from the AWT event thread until the game thread handles them. Only one thread may add and only one thread may
+ * take, so no locking is needed.
+ * 
+ * @author Anthony DePaul
+ */
+public class InputQueue {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** A key was pressed */
+	public static final int KEY_PRESSED = 0;
+	/** A key was released */
+	public static final int KEY_RELEASED = 1;
+	/** The mouse moved, was pressed or was released */
+	public static final int MOUSE = 2;
+
+	/** Most events that can be waiting at once (power of 2) */
+	public static final int CAPACITY = 256;
+
+	/** KEY_PRESSED, KEY_RELEASED or MOUSE */
+	private final int[] types = new int[CAPACITY];
+	/** Key code of key events */
+	private final int[] keys = new int[CAPACITY];
+	/** Mouse event of mouse events */
+	private final MouseEvent[] mouseEvents = new MouseEvent[CAPACITY];
+	/** Status of the mouse of mouse events */
+	private final Button.Status[] mouseStatuses = new Button.Status[CAPACITY];
+	/** System.nanoTime() when the event was added */
+	private final long[] times = new long[CAPACITY];
+
+	/** Amount of events taken (only changed by the game thread) */
+	private final AtomicLong head = new AtomicLong();
+	/** Amount of events added (only changed by the event thread) */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** Events thrown away because the queue was full */
+	public volatile long dropped = 0;
+
+	// --------------------------------------------------------- ADDING
+
+	/**
+	 * Adds a key event. Only call from the event thread.
+	 * 
+	 * @param type
+	 * KEY_PRESSED or KEY_RELEASED
+	 * @param key
+	 * the key code
+	 * @return
+	 * false if the queue was full and the event was thrown away
+	 */
+	public boolean addKey(int type, int key) {
+		return add(type, key, null, null);
+	}
+
+	/**
+	 * Adds a mouse event. Only call from the event thread.
+	 * 
+	 * @param e
+	 * the mouse event
+	 * @param s
+	 * the status of the mouse (hovered?, pressed?, released?)
+	 * @return
+	 * false if the queue was full and the event was thrown away
+	 */
+	public boolean addMouse(MouseEvent e, Button.Status s) {
+		return add(MOUSE, 0, e, s);
+	}
+
+	/**
+	 * Adds an event to the end of the queue.
+	 * 
+	 * @return
+	 * false if the queue was full and the event was thrown away
+	 */
+	private boolean add(int type, int key, MouseEvent e, Button.Status s) {
+		long t = tail.get();
+		if (t - head.get() == CAPACITY) {
+			dropped++;
+			return false;
+		}
+		int i = (int) (t & (CAPACITY - 1));
+		types[i] = type;
+		keys[i] = key;
+		mouseEvents[i] = e;
+		mouseStatuses[i] = s;
+		times[i] = System.nanoTime();
+		tail.lazySet(t + 1); // publishes the slot to the game thread
+		return true;
+	}
+
+	// --------------------------------------------------------- TAKING
+
+	/**
+	 * Checks if there are events waiting. Only call from the game thread.
+	 * 
+	 * @return
+	 * if there is an event to take
+	 */
+	public boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+
+	/**
+	 * The type of the next event. Only call from the game thread.
+	 * 
+	 * @return
+	 * the type of the next event
+	 */
+	public int type() {
+		return types[index()];
+	}
+
+	/**
+	 * The key code of the next event. Only call from the game thread.
+	 * 
+	 * @return
+	 * the key code of the next event
+	 */
+	public int key() {
+		return keys[index()];
+	}
+
+	/**
+	 * The mouse event of the next event. Only call from the game thread.
+	 * 
+	 * @return
+	 * the mouse event of the next event
+	 */
+	public MouseEvent mouseEvent() {
+		return mouseEvents[index()];
+	}
+
+	/**
+	 * The mouse status of the next event. Only call from the game thread.
+	 * 
+	 * @return
+	 * the mouse status of the next event
+	 */
+	public Button.Status mouseStatus() {
+		return mouseStatuses[index()];
+	}
+
+	/**
+	 * System.nanoTime() when the next event was added. Only call from the game thread.
+	 * 
+	 * @return
+	 * System.nanoTime() when the next event was added
+	 */
+	public long time() {
+		return times[index()];
+	}
+
+	/**
+	 * Removes the next event so its slot can be reused. Only call from the game thread.
+	 */
+	public void next() {
+		long h = head.get();
+		mouseEvents[(int) (h & (CAPACITY - 1))] = null;
+		head.lazySet(h + 1);
+	}
+
+	/**
+	 * Finds the next event.
+	 * 
+	 * @return
+	 * where the next event is in the arrays
+	 */
+	private int index() {
+		return (int) (head.get() & (CAPACITY - 1));
+	}
+}
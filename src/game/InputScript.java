@@ -0,0 +1,142 @@
+package game;
+
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import game.graphics.screens.Button;
+
+/**
+ * Input read from a file and given to the game on the tick it happened. Files written with -Dgame.recordInput can be played back.
+ * 
+ * Each line is "tick press KEY", "tick release KEY" or "tick mouse STATUS x y". KEY is a key code or the name after VK_ (W, SPACE, UP,
+ * ...), STATUS is HOVERED, PRESSED or RELEASED and tick counts every update (Game.ticks). Blank lines and lines starting with # are
+ * skipped.
+ * 
+ * @author Anthony DePaul
+ */
+public class InputScript {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** The tick of each event */
+	private ArrayList<Long> ticks = new ArrayList<Long>();
+	/** The type of each event (InputQueue.KEY_PRESSED, KEY_RELEASED or MOUSE) */
+	private ArrayList<Integer> types = new ArrayList<Integer>();
+	/** The key code of key events, x of mouse events */
+	private ArrayList<Integer> keys = new ArrayList<Integer>();
+	/** The y of mouse events */
+	private ArrayList<Integer> ys = new ArrayList<Integer>();
+	/** The mouse status of mouse events */
+	private ArrayList<Button.Status> statuses = new ArrayList<Button.Status>();
+	/** The next event to give to the game */
+	private int next = 0;
+
+	// --------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Input read from a file and given to the game on the tick it happened.
+	 * 
+	 * @param path
+	 * the file to read
+	 * @throws IOException
+	 * if the file can't be read or a line is wrong
+	 */
+	public InputScript(String path) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(path));
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.equals("") || line.startsWith("#"))
+					continue;
+				try {
+					addLine(line.split("\\s+"));
+				} catch (RuntimeException e) {
+					throw new IOException(path + ":" + lineNumber + ": can't read \"" + line + "\"", e);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Adds the event on one line of the file.
+	 * 
+	 * @param parts
+	 * the line split on whitespace
+	 */
+	private void addLine(String[] parts) {
+		long tick = Long.parseLong(parts[0]);
+		if (!ticks.isEmpty() && tick < ticks.get(ticks.size() - 1))
+			throw new IllegalArgumentException("ticks must not go backwards");
+		ticks.add(tick);
+
+		if (parts[1].equals("press") || parts[1].equals("release")) {
+			types.add(parts[1].equals("press") ? InputQueue.KEY_PRESSED : InputQueue.KEY_RELEASED);
+			keys.add(keyCode(parts[2]));
+			ys.add(0);
+			statuses.add(null);
+		} else if (parts[1].equals("mouse")) {
+			types.add(InputQueue.MOUSE);
+			statuses.add(Button.Status.valueOf(parts[2]));
+			keys.add(Integer.parseInt(parts[3]));
+			ys.add(Integer.parseInt(parts[4]));
+		} else
+			throw new IllegalArgumentException("unknown event " + parts[1]);
+	}
+
+	/**
+	 * Finds a key code from a number or a KeyEvent name.
+	 * 
+	 * @param key
+	 * a key code or the name after VK_
+	 * @return
+	 * the key code
+	 */
+	private static int keyCode(String key) {
+		if (Character.isDigit(key.charAt(0)))
+			return Integer.parseInt(key);
+		try {
+			return KeyEvent.class.getField("VK_" + key.toUpperCase()).getInt(null);
+		} catch (Exception e) {
+			throw new IllegalArgumentException("unknown key " + key);
+		}
+	}
+
+	// --------------------------------------------------------- PLAYING
+
+	/**
+	 * Gives the game every event for its current tick. Call right before the update.
+	 * 
+	 * @param game
+	 * the game to give the input to
+	 */
+	public void feed(Game game) {
+		while (next < ticks.size() && ticks.get(next) <= game.ticks) {
+			if (types.get(next) == InputQueue.MOUSE) {
+				int id = statuses.get(next) == Button.Status.PRESSED ? MouseEvent.MOUSE_PRESSED : statuses.get(next) == Button.Status.RELEASED ? MouseEvent.MOUSE_RELEASED : MouseEvent.MOUSE_MOVED;
+				MouseEvent e = new MouseEvent(game, id, 0, 0, keys.get(next), ys.get(next), 1, false);
+				game.input.queue.addMouse(e, statuses.get(next));
+			} else
+				game.input.queue.addKey(types.get(next), keys.get(next));
+			next++;
+		}
+	}
+
+	/**
+	 * Checks if every event has been given to the game.
+	 * 
+	 * @return
+	 * if the script is over
+	 */
+	public boolean finished() {
+		return next == ticks.size();
+	}
+}
@@ -0,0 +1,41 @@
+package game;
+
+import java.io.File;
+import java.io.IOException;
+
+import game.component.ZoneLoader;
+import game.component.ZoneTemplate;
+import game.graphics.images.GraphicLoader;
+
+/**
+ * Compiles every zone's layout.png, with its friendlies and their speech, into a layout.bin next to it that the game reads instead of
+ * decoding the image. Run again after changing a layout, a friendly or a speech file. Zones with an out of date layout.bin are read from
+ * layout.png.
+ * 
+ * @author Anthony DePaul
+ */
+public class ZoneCompiler {
+
+	/**
+	 * Compiles the zones.
+	 * 
+	 * @param args
+	 * not used
+	 * @throws IOException
+	 * if a zone can't be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+		ZoneTemplate.compiledZones = false;
+
+		Game game = new Game();
+		int count = new ZoneLoader(game).count;
+		for (int n = 0; n < count; n++) {
+			File compiled = GraphicLoader.getResource("zones/zone" + (n + 1) + "/layout.bin");
+
+			ZoneTemplate.load(n, game).write(compiled);
+			System.out.println(compiled.getPath() + " (" + compiled.length() + " bytes)");
+		}
+		System.exit(0);
+	}
+}
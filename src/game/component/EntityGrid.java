@@ -0,0 +1,134 @@
+package game.component;
+
+import java.util.ArrayList;
+
+import game.component.entities.Entity;
+
+/**
+ * Sorts the entities in a zone into a grid of cells by location so only the entities near a spot have to be checked.
+ * 
+ * @author Anthony DePaul
+ */
+public class EntityGrid {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** The entities in each cell, stored row by row. Null if the cell has never had an entity */
+	private ArrayList<ArrayList<Entity>> cells;
+	/** Amount of cells wide the grid is */
+	public final int COLS;
+	/** Amount of cells high the grid is */
+	public final int ROWS;
+	/** Width and height of a cell in pixels */
+	public final int CELL_SIZE;
+	/** Size of the biggest entity ever added to the grid */
+	public int maxSize = 0;
+
+	// --------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Sorts the entities in a zone into a grid of cells by location so only the entities near a spot have to be checked.
+	 * 
+	 * @param cols
+	 * amount of cells wide
+	 * @param rows
+	 * amount of cells high
+	 * @param cellSize
+	 * width and height of a cell in pixels
+	 */
+	public EntityGrid(int cols, int rows, int cellSize) {
+		COLS = cols;
+		ROWS = rows;
+		CELL_SIZE = cellSize;
+		cells = new ArrayList<ArrayList<Entity>>(cols * rows);
+		for (int i = 0; i < cols * rows; i++)
+			cells.add(null);
+	}
+
+	// --------------------------------------------------------- CELLS
+
+	/**
+	 * Gets the column a location is in. Locations off the grid use the closest column.
+	 * 
+	 * @param x
+	 * x location in pixels
+	 * @return
+	 * the column
+	 */
+	public int colAt(double x) {
+		return Math.max(0, Math.min(COLS - 1, (int) (x / CELL_SIZE)));
+	}
+
+	/**
+	 * Gets the row a location is in. Locations off the grid use the closest row.
+	 * 
+	 * @param y
+	 * y location in pixels
+	 * @return
+	 * the row
+	 */
+	public int rowAt(double y) {
+		return Math.max(0, Math.min(ROWS - 1, (int) (y / CELL_SIZE)));
+	}
+
+	/**
+	 * Gets the entities in a cell.
+	 * 
+	 * @param col
+	 * the column of the cell
+	 * @param row
+	 * the row of the cell
+	 * @return
+	 * the entities in the cell. Null if the cell has never had an entity
+	 */
+	public ArrayList<Entity> getCell(int col, int row) {
+		return cells.get(row * COLS + col);
+	}
+
+	// --------------------------------------------------------- ENTITIES
+
+	/**
+	 * Adds an entity to the cell its location is in.
+	 * 
+	 * @param e
+	 * the entity to add
+	 */
+	public void add(Entity e) {
+		int cell = rowAt(e.loc.y) * COLS + colAt(e.loc.x);
+		if (cells.get(cell) == null)
+			cells.set(cell, new ArrayList<Entity>());
+		cells.get(cell).add(e);
+		e.grid = this;
+		e.gridCell = cell;
+		if (e.size > maxSize)
+			maxSize = e.size;
+	}
+
+	/**
+	 * Removes an entity from the grid.
+	 * 
+	 * @param e
+	 * the entity to remove
+	 */
+	public void remove(Entity e) {
+		if (e.grid != this)
+			return;
+		cells.get(e.gridCell).remove(e);
+		e.grid = null;
+		e.gridCell = -1;
+	}
+
+	/**
+	 * Moves an entity to a different cell if it moved out of the one it was in.
+	 * 
+	 * @param e
+	 * the entity that moved
+	 */
+	public void moved(Entity e) {
+		int cell = rowAt(e.loc.y) * COLS + colAt(e.loc.x);
+		if (e.grid == this && cell != e.gridCell) {
+			remove(e);
+			add(e);
+		}
+	}
+}
@@ -87,14 +87,23 @@ public class Tile {
 		type = Type.TELEPORT;
 	}
 
-	/** Opens a lock */
-	public void openLock() {
+	/**
+	 * Opens a lock.
+	 * 
+	 * @return
+	 * true if the lock was closed and is now open
+	 */
+	public boolean openLock() {
 		switch (type) {
 		case LOCK_I:
 		case LOCK_II:
 		case LOCK_III:
-			isCollidable = false;
+			if (isCollidable) {
+				isCollidable = false;
+				return true;
+			}
 		default:
 		}
+		return false;
 	}
 }
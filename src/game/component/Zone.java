@@ -1,29 +1,23 @@
 package game.component;
 
-import java.awt.Color;
+import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Point;
 import java.awt.geom.Point2D;
-import java.awt.geom.Point2D.Double;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
 import game.Game;
 import game.component.entities.Entity;
-import game.component.entities.enemies.BasicEnemy;
 import game.component.entities.enemies.FinalBoss;
-import game.component.entities.enemies.MiniBoss;
-import game.component.entities.environment.Destructible;
 import game.component.entities.environment.Item;
 import game.component.entities.environment.Money;
-import game.component.entities.friendlies.Friendly;
-import game.enums.Direction;
-import game.graphics.images.ImageSheet;
-import game.graphics.screens.Scene;
+import game.graphics.OpacityMask;
 
 /**
  * A zone containing tiles and entities.
@@ -36,22 +30,38 @@ public class Zone {
 
 	/** The grid of tiles this zone will represent */
 	public Tile[][] layout;
-	/** The image displayed on top of the entities */
-	public Image topImage;
-	/** The image displayed underneath the entities */
-	public Image bottomImage;
+	/** The top and bottom images and the top mask, replaced whole (null while not in memory, use getLayers) */
+	private ZoneLoader.Layers layers;
 	/** All the entities in the zone */
 	public ArrayList<Entity> entities;
+	/** The entities in the zone sorted by location */
+	public EntityGrid grid;
 	/** The game this zone is in */
 	private Game game;
-	/** Location of all the spawns */
-	public Map<Integer, Point2D.Double> spawns = new HashMap<Integer, Double>();
+	/** The zone as it was read from its layout image (null if it was made straight from images) */
+	public ZoneTemplate template;
+	/** Location of all the spawns (shared with the template, never changed) */
+	public Map<Integer, Point2D.Double> spawns;
 	/** Width of zone in pixels */
 	public int WIDTH;
 	/** Height of zone in pixels */
 	public int HEIGHT;
 	/** The number the zone is in the zones list */
 	public int zoneNumber;
+	/** The bottom image with the locks drawn on it (never drawn on once returned, a lock opening makes a new one) */
+	private BufferedImage bottomComposite;
+	/** Tiles that need to be redrawn on the bottom composite */
+	private ArrayList<Point> dirtyTiles = new ArrayList<Point>();
+	/** Goes up every time the bottom composite changes */
+	public int bottomVersion = 0;
+	/** The layers cut into chunks (null until they are drawn that way) */
+	private ZoneChunks chunks;
+	/** The entities and the player sorted by y position for drawing */
+	private ArrayList<Entity> drawOrder = new ArrayList<Entity>();
+	/** If an entity was added or removed since the draw order was made */
+	private boolean drawOrderChanged = true;
+	/** The player in the draw order */
+	private Entity drawOrderPlayer;
 
 	// --------------------------------------------------------- CONSTRUCTORS
 
@@ -70,13 +80,32 @@ public class Zone {
 	 * the game this zone is in
 	 */
 	public Zone(Image top, Image bottom, Image layoutImage, int zn, Game g) {
-		topImage = top;
-		bottomImage = bottom;
+		this(new ZoneTemplate(layoutImage, zn, g), g);
+		template = null;
+		layers = new ZoneLoader.Layers(top, bottom, null);
+	}
+
+	/**
+	 * Constructor starting the zone from a template. The images are gotten from the game's ZoneLoader when they are needed.
+	 * 
+	 * @param t
+	 * the zone as it was read from its images
+	 * @param g
+	 * the game this zone is in
+	 */
+	public Zone(ZoneTemplate t, Game g) {
+		template = t;
 		entities = new ArrayList<Entity>();
-		zoneNumber = zn;
+		zoneNumber = t.zoneNumber;
+		spawns = t.spawns;
 		game = g;
 
-		createLayout(layoutImage);
+		layout = t.copyLayout();
+		WIDTH = layout[0].length * game.data.TILE_RES;
+		HEIGHT = layout.length * game.data.TILE_RES;
+		grid = new EntityGrid(layout[0].length, layout.length, game.data.TILE_RES);
+		for (ZoneTemplate.Placement p : t.placements)
+			addEntity(t.create(p, game));
 	}
 
 	/**
@@ -92,48 +121,200 @@ public class Zone {
 	}
 
 	/**
-	 * Returns the bottom image of this zone.
+	 * Returns the top image of this zone, loading it if it isn't in memory.
+	 */
+	public Image getTopImage() {
+		return getLayers().top;
+	}
+
+	/**
+	 * Returns the bottom image of this zone with the locks drawn on it. The image is only rebuilt when a lock changes, and a returned image
+	 * is never changed, so it can be drawn on another thread while the zone is updated.
 	 */
 	public Image getBottomImage() {
-		Image image = Game.copyImage(bottomImage);
-		Graphics2D g = (Graphics2D) image.getGraphics();
-		for (int row = 0; row < layout.length; row++)
-			for (int col = 0; col < layout[0].length; col++) {
-				Tile temp = layout[row][col];
+		// gotten before holding the zone, see getLayers
+		Image bottomImage = getLayers().bottom;
+		synchronized (this) {
+			// first request builds the whole thing
+			if (bottomComposite == null) {
+				bottomComposite = Game.copyImage(bottomImage);
+				Graphics2D g = bottomComposite.createGraphics();
+				for (int row = 0; row < layout.length; row++)
+					for (int col = 0; col < layout[0].length; col++)
+						drawLock(col, row, g);
+				g.dispose();
+				dirtyTiles.clear();
+				bottomVersion++;
+			}
+			// only repaint the tiles that changed, on a copy since the old one may still be being drawn
+			else if (dirtyTiles.size() != 0) {
+				bottomComposite = Game.copyImage(bottomComposite);
+				Graphics2D g = bottomComposite.createGraphics();
+				for (Point p : dirtyTiles) {
+					int x = p.x * game.data.TILE_RES;
+					int y = p.y * game.data.TILE_RES;
+					g.setComposite(AlphaComposite.Src);
+					g.drawImage(bottomImage, x, y, x + game.data.TILE_RES, y + game.data.TILE_RES, x, y, x + game.data.TILE_RES, y + game.data.TILE_RES, null);
+					g.setComposite(AlphaComposite.SrcOver);
+					drawLock(p.x, p.y, g);
+				}
+				g.dispose();
+				dirtyTiles.clear();
+				bottomVersion++;
+			}
+			return bottomComposite;
+		}
+	}
 
-				switch (temp.type) {
-				case LOCK_I:
-					if (temp.isCollidable)
-						Game.drawRotated((BufferedImage) game.images.lockI.grabImage(0, 0, 1, 1), col * game.data.TILE_RES, row * game.data.TILE_RES, temp.dir, g);
-					else
-						Game.drawRotated((BufferedImage) game.images.lockI.grabImage(0, 1, 1, 1), col * game.data.TILE_RES, row * game.data.TILE_RES, temp.dir, g);
-					break;
-				case LOCK_II:
-					if (temp.isCollidable)
-						Game.drawRotated((BufferedImage) game.images.lockII.grabImage(0, 0, 1, 1), col * game.data.TILE_RES, row * game.data.TILE_RES, temp.dir, g);
-					else
-						Game.drawRotated((BufferedImage) game.images.lockII.grabImage(0, 1, 1, 1), col * game.data.TILE_RES, row * game.data.TILE_RES, temp.dir, g);
-					break;
-				case LOCK_III:
-					if (temp.isCollidable)
-						Game.drawRotated((BufferedImage) game.images.lockIII.grabImage(0, 0, 1, 1), col * game.data.TILE_RES, row * game.data.TILE_RES, temp.dir, g);
-					else
-						Game.drawRotated((BufferedImage) game.images.lockIII.grabImage(0, 1, 1, 1), col * game.data.TILE_RES, row * game.data.TILE_RES, temp.dir, g);
-					break;
-				default:
-					break;
+	/**
+	 * Returns which tiles of the top image have something in them, or null if OpacityMask.topMask is off.
+	 */
+	public OpacityMask getTopMask() {
+		return getLayers().topMask;
+	}
+
+	/**
+	 * Returns the top and bottom layers of this zone cut into chunks. The images are passed in when the chunks are drawn.
+	 */
+	public synchronized ZoneChunks getChunks() {
+		if (chunks == null)
+			chunks = new ZoneChunks(this, game.data.TILE_RES, game.data.WIDTH, game.data.HEIGHT);
+		return chunks;
+	}
+
+	/**
+	 * Returns the top and bottom images of this zone and its top mask, getting them from the ZoneLoader if they were let go. They are
+	 * never changed, so they can still be used after the zone lets go of them.
+	 */
+	public ZoneLoader.Layers getLayers() {
+		ZoneLoader.Layers loaded = null;
+		while (true) {
+			synchronized (this) {
+				if (layers == null)
+					layers = loaded;
+				if (layers != null) {
+					// the mask is made the first time it is needed if it wasn't made with the images
+					if (layers.topMask == null && OpacityMask.topMask)
+						layers = new ZoneLoader.Layers(layers.top, layers.bottom, new OpacityMask(layers.top, game.data.TILE_RES));
+					return layers;
 				}
 			}
-		return image;
+			// not holding the zone, the ZoneLoader lets go of other zones while loading
+			loaded = game.zoneLoader.images(zoneNumber);
+		}
 	}
 
 	/**
-	 * Updates all the entities images in the zone.
+	 * Lets go of the images of this zone so they can be freed. The locks are kept in the layout, so the bottom image is rebuilt the same
+	 * the next time it is needed.
 	 */
-	public void updateEntityImages() {
-		if (entities.size() != 0)
-			for (Entity e : entities)
-				e.updateImage();
+	public synchronized void unloadImages() {
+		if (template == null)
+			return;
+		layers = null;
+		bottomComposite = null;
+		dirtyTiles.clear();
+		if (chunks != null)
+			chunks.clear();
+	}
+
+	/**
+	 * Draws the lock at the specified tile if there is one.
+	 * 
+	 * @param col
+	 * the column of the tile
+	 * @param row
+	 * the row of the tile
+	 * @param g
+	 * the graphics object to draw on
+	 */
+	void drawLock(int col, int row, Graphics2D g) {
+		Tile temp = layout[row][col];
+
+		switch (temp.type) {
+		case LOCK_I:
+			if (temp.isCollidable)
+				g.drawImage(game.images.lockI.grabRotated(0, 0, 1, 1, temp.dir), col * game.data.TILE_RES, row * game.data.TILE_RES, null);
+			else
+				g.drawImage(game.images.lockI.grabRotated(0, 1, 1, 1, temp.dir), col * game.data.TILE_RES, row * game.data.TILE_RES, null);
+			break;
+		case LOCK_II:
+			if (temp.isCollidable)
+				g.drawImage(game.images.lockII.grabRotated(0, 0, 1, 1, temp.dir), col * game.data.TILE_RES, row * game.data.TILE_RES, null);
+			else
+				g.drawImage(game.images.lockII.grabRotated(0, 1, 1, 1, temp.dir), col * game.data.TILE_RES, row * game.data.TILE_RES, null);
+			break;
+		case LOCK_III:
+			if (temp.isCollidable)
+				g.drawImage(game.images.lockIII.grabRotated(0, 0, 1, 1, temp.dir), col * game.data.TILE_RES, row * game.data.TILE_RES, null);
+			else
+				g.drawImage(game.images.lockIII.grabRotated(0, 1, 1, 1, temp.dir), col * game.data.TILE_RES, row * game.data.TILE_RES, null);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Opens the lock at the specified tile and marks the tile to be redrawn.
+	 * 
+	 * @param col
+	 * the column of the lock
+	 * @param row
+	 * the row of the lock
+	 */
+	public synchronized void openLock(int col, int row) {
+		if (layout[row][col].openLock()) {
+			if (bottomComposite != null)
+				dirtyTiles.add(new Point(col, row));
+			if (chunks != null)
+				chunks.tileChanged(col, row);
+		}
+	}
+
+	/**
+	 * Adds an entity to the zone.
+	 * 
+	 * @param e
+	 * the entity to add
+	 */
+	public void addEntity(Entity e) {
+		entities.add(e);
+		grid.add(e);
+		drawOrderChanged = true;
+	}
+
+	/**
+	 * Gets the entities in the zone and the player sorted by y position. The same list is kept and fixed every call, so since entities only
+	 * move a few pixels a tick, it is usually already sorted.
+	 * 
+	 * @param player
+	 * the player to include
+	 * @return
+	 * the entities and the player sorted by y position
+	 */
+	public ArrayList<Entity> getDrawOrder(Entity player) {
+		// entities were added or removed
+		if (drawOrderChanged || drawOrderPlayer != player) {
+			drawOrder.clear();
+			drawOrder.addAll(entities);
+			drawOrder.add(player);
+			Collections.sort(drawOrder);
+			drawOrderPlayer = player;
+			drawOrderChanged = false;
+			return drawOrder;
+		}
+		// insertion sort (only moves entities that passed each other)
+		for (int i = 1; i < drawOrder.size(); i++) {
+			Entity temp = drawOrder.get(i);
+			int j = i - 1;
+			while (j >= 0 && drawOrder.get(j).compareTo(temp) > 0) {
+				drawOrder.set(j + 1, drawOrder.get(j));
+				j--;
+			}
+			drawOrder.set(j + 1, temp);
+		}
+		return drawOrder;
 	}
 
 	/**
@@ -143,9 +324,12 @@ public class Zone {
 		if (entities.size() != 0)
 			for (int i = 0; i < entities.size(); i++) {
 				Entity temp = entities.get(i);
+				temp.lastLoc.setLocation(temp.loc);
 				temp.update();
 				if ((temp instanceof Money || temp instanceof Item) && temp.hp == 0) { // <-------- do entity drops break this? does that even matter?
 					entities.remove(i);
+					grid.remove(temp);
+					drawOrderChanged = true;
 					i--;
 				}
 			}
@@ -159,137 +343,6 @@ public class Zone {
 		return false;
 	}
 
-	/**
-	 * Creates layout based off of an image.
-	 */
-	private void createLayout(Image layoutImage) {
-		layout = new Tile[layoutImage.getHeight(null)][layoutImage.getWidth(null)];
-		WIDTH = layout[0].length * game.data.TILE_RES;
-		HEIGHT = layout.length * game.data.TILE_RES;
-
-		// for each pixel
-		for (int row = 0; row < layoutImage.getHeight(null); row++) {
-			for (int col = 0; col < layoutImage.getWidth(null); col++) {
-				Color temp = new Color(((BufferedImage) layoutImage).getRGB(col, row));
-				int r = temp.getRed(), g = temp.getGreen(), b = temp.getBlue();
-
-				// black -> wall
-				if (r == 0 && g == 0 && b == 0)
-					layout[row][col] = Tile.WALL;
-				// magenta -> pit
-				else if (r == 255 && g == 0 && b == 255)
-					layout[row][col] = Tile.PIT;
-				// blue -> spawn
-				else if (r == 0 && g <= 254 && b == 255) {
-					layout[row][col] = Tile.OPEN;
-					spawns.put(g, new Point2D.Double(col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2)));
-				}
-				// green -> friendly
-				else if (g == 255 && b >= 0 && b <= 3 && checkFile("/game_resources/entities/friendly/" + r + "/main.png")) {
-					layout[row][col] = Tile.OPEN;
-					Friendly tempFriendly = new Friendly(game, new ImageSheet(game, "entities/friendly/" + r + "/main.png"), col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2), false, null, b);
-					entities.add(tempFriendly);
-					if (checkFile("/game_resources/entities/friendly/" + r + "/speech.txt"))
-						tempFriendly.scene = new Scene(game, "/game_resources/entities/friendly/" + r + "/speech.txt", true);
-				}
-				// yellow -> tp
-				else if (r == 255 && g == 255 && b == 0)
-					layout[row][col] = new Tile(zoneNumber + 1);
-				// other shade of yellow -> custom tp
-				else if (r == 255 && g == 255 && b > 0 && b < 255)
-					layout[row][col] = new Tile(b - 1);
-				// red -> enemy
-				else if (r == 255 && g == 0 && b == 0) {
-					layout[row][col] = Tile.OPEN;
-					entities.add(new BasicEnemy(game, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2)));
-				}
-				// cyan -> mini boss
-				else if (r == 0 && g == 255 && b == 255) {
-					entities.add(new MiniBoss(game, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2)));
-					layout[row][col] = Tile.OPEN;
-				}
-				// cyanish -> final boss
-				else if (r == 1 && g == 255 && b == 255) {
-					entities.add(new FinalBoss(game, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2)));
-					layout[row][col] = Tile.OPEN;
-				}
-				// money
-				else if (r == 100 && g == 150 && b <= 3) {
-					switch (b) {
-					case 1:
-						entities.add(new Money(game, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2), 1));
-						break;
-					case 2:
-						entities.add(new Money(game, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2), 5));
-						break;
-					case 3:
-						entities.add(new Money(game, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2), 10));
-						break;
-					}
-					layout[row][col] = Tile.OPEN;
-				}
-				// items
-				else if (r >= 100 && g == 150) {
-					entities.add(new Item(game, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2), b, (r - 100) * 5));
-					layout[row][col] = Tile.OPEN;
-				}
-				// locks N
-				else if (r == 51 && b == 150) {
-					if (g == 51)
-						layout[row][col] = new Tile(Tile.Type.LOCK_I, Direction.NORTH, true);
-					else if (g == 52)
-						layout[row][col] = new Tile(Tile.Type.LOCK_II, Direction.NORTH, true);
-					else if (g == 53)
-						layout[row][col] = new Tile(Tile.Type.LOCK_III, Direction.NORTH, true);
-				}
-				// locks E
-				else if (r == 52 && b == 150) {
-					if (g == 51)
-						layout[row][col] = new Tile(Tile.Type.LOCK_I, Direction.EAST, true);
-					else if (g == 52)
-						layout[row][col] = new Tile(Tile.Type.LOCK_II, Direction.EAST, true);
-					else if (g == 53)
-						layout[row][col] = new Tile(Tile.Type.LOCK_III, Direction.EAST, true);
-				}
-				// locks S
-				else if (r == 53 && b == 150) {
-					if (g == 51)
-						layout[row][col] = new Tile(Tile.Type.LOCK_I, Direction.SOUTH, true);
-					else if (g == 52)
-						layout[row][col] = new Tile(Tile.Type.LOCK_II, Direction.SOUTH, true);
-					else if (g == 53)
-						layout[row][col] = new Tile(Tile.Type.LOCK_III, Direction.SOUTH, true);
-				}
-				// locks W
-				else if (r == 54 && b == 150) {
-					if (g == 51)
-						layout[row][col] = new Tile(Tile.Type.LOCK_I, Direction.WEST, true);
-					else if (g == 52)
-						layout[row][col] = new Tile(Tile.Type.LOCK_II, Direction.WEST, true);
-					else if (g == 53)
-						layout[row][col] = new Tile(Tile.Type.LOCK_III, Direction.WEST, true);
-				}
-				// destructibles
-				else if (g == 150 && b == 0) {
-					if (r == 1) {
-						entities.add(new Destructible(game, game.images.destructible1, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2), new Money(game, 1), new Money(game, 5), null));
-						layout[row][col] = Tile.OPEN;
-					} else if (r == 2) {
-						entities.add(new Destructible(game, game.images.destructible2, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2), new Money(game, 1), new Money(game, 5), null));
-						layout[row][col] = Tile.OPEN;
-					} else if (r == 3) {
-						entities.add(new Destructible(game, game.images.destructible3, col * game.data.TILE_RES + (game.data.TILE_RES / 2), row * game.data.TILE_RES + (game.data.TILE_RES / 2), new Money(game, 1), new Money(game, 5), null));
-						layout[row][col] = Tile.OPEN;
-					}
-
-				}
-				// any other color -> open
-				else
-					layout[row][col] = Tile.OPEN;
-			}
-		}
-	}
-
 	/**
 	 * Check to see if the file exists
 	 * 
@@ -0,0 +1,316 @@
+package game.component;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import game.Game;
+import game.graphics.LayerCache;
+import game.graphics.OpacityMask;
+
+/**
+ * The top and bottom layers of a zone cut into square chunks of tiles. Chunks are only made when they are on screen, the locks are drawn
+ * on the bottom chunks, and the least recently drawn chunks are let go so the memory and time used stay the same however big the zone is.
+ * Chunks can be made already scaled up so they are drawn without scaling every frame.
+ * 
+ * @author Anthony DePaul
+ */
+public class ZoneChunks {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** If the layers are drawn in chunks (-Dgame.chunkedLayers=false to draw the whole layers, only used with Game.directRender) */
+	public static boolean chunkedLayers = !"false".equals(System.getProperty("game.chunkedLayers"));
+	/** Width and height of a chunk in tiles (-Dgame.chunkTiles=N) */
+	public static int chunkTiles = Math.max(1, Integer.getInteger("game.chunkTiles", 8));
+	/** Most chunks of a zone kept at once when they aren't scaled, raised if the screen needs more (-Dgame.residentChunks=N) */
+	public static int residentChunks = Integer.getInteger("game.residentChunks", 32);
+
+	/** Amount of chunks made in any zone */
+	public static AtomicLong totalBuilds = new AtomicLong();
+	/** The zone the chunks are cut from */
+	private Zone zone;
+	/** Size of a chunk in pixels */
+	private int size;
+	/** Amount of chunks across the zone */
+	private int cols;
+	/** Amount of chunks down the zone */
+	private int rows;
+	/** Most chunks kept at once */
+	private int limit;
+	/** Chunks the screen can touch at once, the limit is never lower */
+	private int screenChunks;
+	/** How many times bigger than the zone the chunks are made */
+	private int scale = 1;
+	/** The chunks that are made, least recently drawn first */
+	private LinkedHashMap<Integer, Chunk> chunks = new LinkedHashMap<Integer, Chunk>(16, 0.75f, true);
+
+	/**
+	 * One chunk of both layers.
+	 */
+	private static class Chunk {
+		/** Pixel location of the chunk in the zone */
+		int x, y;
+		/** The bottom layer with the locks drawn on it */
+		BufferedImage bottom;
+		/** The top layer (null if nothing is drawn in this chunk of it) */
+		BufferedImage top;
+		/** Tiles whose lock changed since the bottom was drawn */
+		ArrayList<Point> dirtyTiles = new ArrayList<Point>();
+		/** Goes up every time the bottom changes */
+		int version = 0;
+		/** Accelerated copies of the layers */
+		LayerCache bottomCache = new LayerCache(), topCache = new LayerCache();
+	}
+
+	// --------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Chunks of a zone. Nothing is made until it is drawn.
+	 * 
+	 * @param z
+	 * the zone to cut into chunks
+	 * @param tileRes
+	 * size of a tile in pixels
+	 * @param screenWidth
+	 * width of the screen in pixels
+	 * @param screenHeight
+	 * height of the screen in pixels
+	 */
+	public ZoneChunks(Zone z, int tileRes, int screenWidth, int screenHeight) {
+		zone = z;
+		size = chunkTiles * tileRes;
+		cols = (z.WIDTH + size - 1) / size;
+		rows = (z.HEIGHT + size - 1) / size;
+		// the screen (plus a tile of margin) can cover one more chunk each way than fits in it
+		screenChunks = ((screenWidth + tileRes) / size + 2) * ((screenHeight + tileRes) / size + 2);
+		limit = Math.max(residentChunks, screenChunks);
+	}
+
+	// --------------------------------------------------------- CHUNKS
+
+	/**
+	 * Makes the chunks touching part of the zone and brings their locks up to date, then lets go of the ones drawn least recently.
+	 * 
+	 * @param layers
+	 * the images of the zone (Zone.getLayers)
+	 * @param s
+	 * how many times bigger than the zone to make the chunks
+	 * @param left
+	 * left of the part of the zone
+	 * @param top
+	 * top of the part of the zone
+	 * @param width
+	 * width of the part of the zone
+	 * @param height
+	 * height of the part of the zone
+	 */
+	public synchronized void prepare(ZoneLoader.Layers layers, int s, int left, int top, int width, int height) {
+		setScale(s);
+		int firstCol = Math.max(0, left / size);
+		int firstRow = Math.max(0, top / size);
+		int lastCol = Math.min(cols - 1, (left + width - 1) / size);
+		int lastRow = Math.min(rows - 1, (top + height - 1) / size);
+		for (int row = firstRow; row <= lastRow; row++)
+			for (int col = firstCol; col <= lastCol; col++)
+				get(layers, col, row);
+		trim();
+	}
+
+	/**
+	 * Draws the chunks of a layer touching part of the zone, making them if needed, then lets go of the ones drawn least recently. The part is
+	 * drawn at 0, 0 and the graphics should be clipped to it. Chunks made bigger than the zone are drawn pixel for pixel, so the graphics
+	 * should be scaled by the same amount.
+	 * 
+	 * @param g
+	 * the graphics to draw on
+	 * @param gc
+	 * the screen the chunks are drawn on (the canvas's getGraphicsConfiguration)
+	 * @param layers
+	 * the images of the zone (Zone.getLayers)
+	 * @param s
+	 * how many times bigger than the zone to make the chunks
+	 * @param topLayer
+	 * true to draw the top layer, false for the bottom
+	 * @param left
+	 * left of the part of the zone
+	 * @param top
+	 * top of the part of the zone
+	 * @param width
+	 * width of the part of the zone
+	 * @param height
+	 * height of the part of the zone
+	 */
+	public synchronized void draw(Graphics2D g, GraphicsConfiguration gc, ZoneLoader.Layers layers, int s, boolean topLayer, int left, int top, int width, int height) {
+		setScale(s);
+		// the chunks are already scaled, only keep where the graphics puts 0, 0
+		AffineTransform transform = g.getTransform();
+		if (scale != 1)
+			g.setTransform(AffineTransform.getTranslateInstance(transform.getTranslateX(), transform.getTranslateY()));
+
+		int firstCol = Math.max(0, left / size);
+		int firstRow = Math.max(0, top / size);
+		int lastCol = Math.min(cols - 1, (left + width - 1) / size);
+		int lastRow = Math.min(rows - 1, (top + height - 1) / size);
+		OpacityMask mask = topLayer ? layers.topMask : null;
+		for (int row = firstRow; row <= lastRow; row++)
+			for (int col = firstCol; col <= lastCol; col++) {
+				Chunk c = get(layers, col, row);
+				if (topLayer) {
+					// only the tiles with something in them
+					if (mask != null) {
+						if (c.top != null)
+							c.topCache.draw(g, gc, c.top, 0, mask, scale, c.x, c.y, left, top, width, height);
+					} else
+						c.topCache.draw(g, gc, c.top, 0, (c.x - left) * scale, (c.y - top) * scale);
+				} else
+					c.bottomCache.draw(g, gc, c.bottom, c.version, (c.x - left) * scale, (c.y - top) * scale);
+			}
+		g.setTransform(transform);
+		trim();
+	}
+
+	/**
+	 * Marks a tile to be redrawn on its bottom chunk, if the chunk is made.
+	 * 
+	 * @param col
+	 * the column of the tile
+	 * @param row
+	 * the row of the tile
+	 */
+	public synchronized void tileChanged(int col, int row) {
+		Chunk c = chunks.get(row / chunkTiles * cols + col / chunkTiles);
+		if (c != null)
+			c.dirtyTiles.add(new Point(col, row));
+	}
+
+	/**
+	 * Lets go of every chunk.
+	 */
+	public synchronized void clear() {
+		for (Chunk c : chunks.values()) {
+			c.bottomCache.flush();
+			c.topCache.flush();
+		}
+		chunks.clear();
+	}
+
+	/**
+	 * Returns the amount of chunks that are made.
+	 */
+	public synchronized int resident() {
+		return chunks.size();
+	}
+
+	/**
+	 * Lets go of the chunks drawn least recently until there are no more than the limit.
+	 */
+	private void trim() {
+		// the chunks just used are the newest
+		Iterator<Chunk> it = chunks.values().iterator();
+		while (chunks.size() > limit && it.hasNext()) {
+			Chunk c = it.next();
+			c.bottomCache.flush();
+			c.topCache.flush();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Lets go of every chunk if they were made at a different scale (the screen was resized). Scaled chunks are bigger, so fewer are kept
+	 * to use about the same memory.
+	 */
+	private void setScale(int s) {
+		if (s != scale) {
+			clear();
+			scale = s;
+			limit = Math.max(residentChunks / (s * s), screenChunks);
+		}
+	}
+
+	/**
+	 * Starts drawing on a chunk image in zone pixels.
+	 */
+	private Graphics2D createGraphics(BufferedImage image, Chunk c) {
+		Graphics2D g = image.createGraphics();
+		if (scale != 1) {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+			g.scale(scale, scale);
+		}
+		g.translate(-c.x, -c.y);
+		return g;
+	}
+
+	/**
+	 * Gets a chunk, making it or redrawing its changed tiles if needed.
+	 */
+	private Chunk get(ZoneLoader.Layers layers, int col, int row) {
+		Chunk c = chunks.get(row * cols + col);
+		if (c == null) {
+			c = build(layers, col, row);
+			chunks.put(row * cols + col, c);
+		} else if (c.dirtyTiles.size() != 0) {
+			Graphics2D g = createGraphics(c.bottom, c);
+			int res = size / chunkTiles;
+			Image source = layers.bottom;
+			for (Point p : c.dirtyTiles) {
+				int x = p.x * res;
+				int y = p.y * res;
+				g.setComposite(AlphaComposite.Src);
+				g.drawImage(source, x, y, x + res, y + res, x, y, x + res, y + res, null);
+				g.setComposite(AlphaComposite.SrcOver);
+				zone.drawLock(p.x, p.y, g);
+			}
+			g.dispose();
+			c.dirtyTiles.clear();
+			c.version++;
+		}
+		return c;
+	}
+
+	/**
+	 * Cuts a chunk out of the layers and draws its locks.
+	 */
+	private Chunk build(ZoneLoader.Layers layers, int col, int row) {
+		Chunk c = new Chunk();
+		c.x = col * size;
+		c.y = row * size;
+		int width = Math.min(size, zone.WIDTH - c.x);
+		int height = Math.min(size, zone.HEIGHT - c.y);
+
+		c.bottom = Game.createCompatibleImage(width * scale, height * scale);
+		Graphics2D g = createGraphics(c.bottom, c);
+		// straight copies, nothing to blend with yet
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(layers.bottom, c.x, c.y, c.x + width, c.y + height, c.x, c.y, c.x + width, c.y + height, null);
+		g.setComposite(AlphaComposite.SrcOver);
+		int firstCol = col * chunkTiles;
+		int firstRow = row * chunkTiles;
+		for (int r = firstRow; r < Math.min(firstRow + chunkTiles, zone.layout.length); r++)
+			for (int cl = firstCol; cl < Math.min(firstCol + chunkTiles, zone.layout[0].length); cl++)
+				zone.drawLock(cl, r, g);
+		g.dispose();
+
+		// most of the top layer is empty
+		OpacityMask mask = layers.topMask;
+		if (mask == null || !mask.isEmpty(firstCol, firstRow, firstCol + chunkTiles - 1, firstRow + chunkTiles - 1)) {
+			c.top = Game.createCompatibleImage(width * scale, height * scale);
+			g = createGraphics(c.top, c);
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(layers.top, c.x, c.y, c.x + width, c.y + height, c.x, c.y, c.x + width, c.y + height, null);
+			g.dispose();
+		}
+
+		totalBuilds.incrementAndGet();
+		return c;
+	}
+}
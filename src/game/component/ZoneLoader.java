@@ -0,0 +1,184 @@
+package game.component;
+
+import java.awt.Image;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import game.Game;
+import game.graphics.OpacityMask;
+import game.graphics.images.GraphicLoader;
+
+/**
+ * Loads zones when they are first needed and keeps them for the whole game. Layouts are small and kept once read, the top and bottom
+ * images are only kept for the zones used most recently. Zones a teleport leads to are loaded in the background when the player enters a
+ * zone.
+ * 
+ * @author Anthony DePaul
+ */
+public class ZoneLoader {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** Most zones with their images in memory at once (-Dgame.residentZones=13 to keep every zone) */
+	public static int residentZones = Math.max(2, Integer.getInteger("game.residentZones", 4));
+
+	/** Amount of zones in the game */
+	public final int count;
+	/** The game the zones are in */
+	private Game game;
+	/** Layouts being read or already read */
+	private Future<?>[] templates;
+	/** Top and bottom images being loaded or already loaded, least recently used first */
+	private LinkedHashMap<Integer, Future<Layers>> images = new LinkedHashMap<Integer, Future<Layers>>(16, 0.75f, true);
+	/** The last zone entered */
+	private Zone entered;
+
+	// --------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * The images of a zone.
+	 */
+	public static class Layers {
+		/** The image displayed on top of the entities */
+		public final Image top;
+		/** The image displayed underneath the entities */
+		public final Image bottom;
+		/** Which tiles of the top image have something in them (null if OpacityMask.topMask is off) */
+		public final OpacityMask topMask;
+
+		/**
+		 * The images of a zone. They are never changed, so they can be handed to other threads as they are.
+		 * 
+		 * @param t
+		 * the image displayed on top of the entities
+		 * @param b
+		 * the image displayed underneath the entities
+		 * @param m
+		 * which tiles of the top image have something in them
+		 */
+		public Layers(Image t, Image b, OpacityMask m) {
+			top = t;
+			bottom = b;
+			topMask = m;
+		}
+	}
+
+	/**
+	 * Finds the zones of the game. Nothing is loaded until it is needed.
+	 * 
+	 * @param g
+	 * the game the zones are in
+	 */
+	public ZoneLoader(Game g) {
+		game = g;
+		int n = 1;
+		while (Zone.checkFile("/game_resources/zones/zone" + (n + 1) + "/layout.png"))
+			n++;
+		count = n;
+		templates = new Future<?>[count];
+	}
+
+	// --------------------------------------------------------- LOADING
+
+	/**
+	 * Gets the layout of a zone, reading it if it hasn't been yet.
+	 * 
+	 * @param n
+	 * the zone number
+	 * @return
+	 * the zone as it was read from its layout image
+	 */
+	public ZoneTemplate template(int n) {
+		return (ZoneTemplate) GraphicLoader.await(loadTemplate(n));
+	}
+
+	/**
+	 * Gets the top and bottom images of a zone, loading them if they aren't in memory.
+	 * 
+	 * @param n
+	 * the zone number
+	 * @return
+	 * the images of the zone
+	 */
+	public Layers images(int n) {
+		return GraphicLoader.await(loadImages(n));
+	}
+
+	/**
+	 * Starts loading a zone in the background.
+	 * 
+	 * @param n
+	 * the zone number
+	 */
+	public synchronized void prefetch(int n) {
+		loadTemplate(n);
+		if (!images.containsKey(n))
+			loadImages(n);
+	}
+
+	/**
+	 * Called every update with the zone the player is in. The first time a zone is entered it becomes the most recently used and the
+	 * zones its teleports lead to start loading.
+	 * 
+	 * @param zone
+	 * the current zone
+	 */
+	public synchronized void entered(Zone zone) {
+		if (zone == entered || zone.template == null)
+			return;
+		entered = zone;
+		loadImages(zone.zoneNumber);
+		for (int n : zone.template.neighbors())
+			if (n < count)
+				prefetch(n);
+	}
+
+	/**
+	 * Starts reading the layout of a zone if it hasn't been yet.
+	 */
+	private synchronized Future<?> loadTemplate(final int n) {
+		if (templates[n] == null)
+			templates[n] = GraphicLoader.submit(new Callable<ZoneTemplate>() {
+				@Override
+				public ZoneTemplate call() {
+					return ZoneTemplate.load(n, game);
+				}
+			});
+		return templates[n];
+	}
+
+	/**
+	 * Starts loading the images of a zone if they aren't in memory and lets go of the least recently used ones.
+	 */
+	private synchronized Future<Layers> loadImages(final int n) {
+		Future<Layers> task = images.get(n);
+		if (task != null)
+			return task;
+
+		task = GraphicLoader.submit(new Callable<Layers>() {
+			@Override
+			public Layers call() {
+				Image top = GraphicLoader.getImage("zones/zone" + (n + 1) + "/top.png");
+				Image bottom = GraphicLoader.getImage("zones/zone" + (n + 1) + "/bottom.png");
+				return new Layers(top, bottom, OpacityMask.topMask ? new OpacityMask(top, game.data.TILE_RES) : null);
+			}
+		});
+		images.put(n, task);
+
+		// let go of the least recently used (never the zone the player is in)
+		Iterator<Map.Entry<Integer, Future<Layers>>> it = images.entrySet().iterator();
+		while (images.size() > residentZones && it.hasNext()) {
+			int old = it.next().getKey();
+			if (old == n || old == game.data.currentZoneNumber)
+				continue;
+			it.remove();
+			Zone zone = game.data.zones.size() > old ? game.data.zones.get(old) : null;
+			if (zone != null)
+				zone.unloadImages();
+		}
+		return task;
+	}
+}
@@ -0,0 +1,560 @@
+package game.component;
+
+import java.awt.Image;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import game.Game;
+import game.component.entities.Entity;
+import game.component.entities.enemies.BasicEnemy;
+import game.component.entities.enemies.FinalBoss;
+import game.component.entities.enemies.MiniBoss;
+import game.component.entities.environment.Destructible;
+import game.component.entities.environment.Item;
+import game.component.entities.environment.Money;
+import game.component.entities.friendlies.Friendly;
+import game.enums.Direction;
+import game.graphics.images.GraphicLoader;
+import game.graphics.images.ImageSheet;
+import game.graphics.screens.Scene;
+
+/**
+ * A zone as it was read from its layout image, before anything happened in it. Never changed once made, so it is kept for the whole game
+ * and each new Zone starts from it without going back to the disk. The top and bottom images are kept separately by the ZoneLoader.
+ * 
+ * @author Anthony DePaul
+ */
+public class ZoneTemplate {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** If zones are read from layout.bin when it was compiled from the current layout.png (-Dgame.compiledZones=false to always decode layout.png) */
+	public static boolean compiledZones = !"false".equals(System.getProperty("game.compiledZones"));
+	/** First bytes of a compiled zone ("ZONE") */
+	private static final int MAGIC = 0x5A4F4E45;
+	/** Version of the compiled format, changed whenever the format changes */
+	private static final int VERSION = 2;
+
+	/** The grid of tiles, locks are copied for each zone since they can be opened */
+	private final Tile[][] layout;
+	/** Location of all the spawns */
+	public final Map<Integer, Point2D.Double> spawns;
+	/** The entities placed in the zone, in the order they are added */
+	public final List<Placement> placements;
+	/** Images of the friendlies in the zone */
+	private final Map<Integer, ImageSheet> friendlyImages = new HashMap<Integer, ImageSheet>();
+	/** Text of the scenes of the friendlies in the zone that have one */
+	private final Map<Integer, String[]> friendlySpeech = new HashMap<Integer, String[]>();
+	/** Friendly folders the layout asks for, whether they exist or not (their files are part of the checksum) */
+	private final TreeSet<Integer> friendlyIds = new TreeSet<Integer>();
+	/** The number the zone is in the zones list */
+	public final int zoneNumber;
+
+	/** Kinds of entities that can be placed in a layout */
+	public enum Kind {
+		FRIENDLY, BASIC_ENEMY, MINI_BOSS, FINAL_BOSS, MONEY, ITEM, DESTRUCTIBLE;
+	}
+
+	/**
+	 * An entity placed in the layout.
+	 */
+	public static class Placement {
+		/** What the entity is */
+		public final Kind kind;
+		/** Location of the entity in pixels */
+		public final int x, y;
+		/** Friendly: direction, money: amount, item: id, destructible: which one */
+		public final int value;
+		/** Item: cost to pick up */
+		public final int cost;
+		/** Friendly: which friendly (its folder in entities/friendly), -1 for everything else */
+		public final int friendly;
+
+		/**
+		 * An entity placed in the layout.
+		 */
+		public Placement(Kind k, int x, int y, int value, int cost, int friendly) {
+			kind = k;
+			this.x = x;
+			this.y = y;
+			this.value = value;
+			this.cost = cost;
+			this.friendly = friendly;
+		}
+	}
+
+	// --------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Reads a zone from its layout image.
+	 * 
+	 * @param layoutImage
+	 * the grid of tiles this zone will represent
+	 * @param zn
+	 * the zone number this zone is in the zones list
+	 * @param game
+	 * the game the images and tile size come from
+	 */
+	public ZoneTemplate(Image layoutImage, int zn, Game game) {
+		zoneNumber = zn;
+
+		Map<Integer, Point2D.Double> spawnMap = new HashMap<Integer, Point2D.Double>();
+		ArrayList<Placement> list = new ArrayList<Placement>();
+		layout = createLayout(layoutImage, spawnMap, list, game);
+		spawns = Collections.unmodifiableMap(spawnMap);
+		placements = Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Reads a zone that was compiled by ZoneCompiler.
+	 * 
+	 * @param in
+	 * the compiled zone, after the header
+	 * @param ids
+	 * the friendly folders the layout asks for, from the header
+	 * @param zn
+	 * the zone number this zone is in the zones list
+	 * @param game
+	 * the game the images come from
+	 */
+	private ZoneTemplate(ByteBuffer in, List<Integer> ids, int zn, Game game) {
+		zoneNumber = zn;
+		friendlyIds.addAll(ids);
+
+		// tiles
+		int width = in.getInt();
+		int height = in.getInt();
+		layout = new Tile[height][width];
+		for (int row = 0; row < height; row++)
+			for (int col = 0; col < width; col++) {
+				int type = in.get();
+				int dir = in.get();
+				boolean collidable = in.get() != 0;
+				int tpZone = in.getShort();
+				if (type == 0)
+					continue;
+				switch (Tile.Type.values()[type - 1]) {
+				case OPEN:
+					layout[row][col] = Tile.OPEN;
+					break;
+				case WALL:
+					layout[row][col] = Tile.WALL;
+					break;
+				case PIT:
+					layout[row][col] = Tile.PIT;
+					break;
+				case TELEPORT:
+					layout[row][col] = new Tile(tpZone);
+					break;
+				default:
+					layout[row][col] = new Tile(Tile.Type.values()[type - 1], Direction.values()[dir], collidable);
+				}
+			}
+
+		// spawns
+		Map<Integer, Point2D.Double> spawnMap = new HashMap<Integer, Point2D.Double>();
+		for (int i = in.getInt(); i > 0; i--)
+			spawnMap.put(in.getInt(), new Point2D.Double(in.getDouble(), in.getDouble()));
+		spawns = Collections.unmodifiableMap(spawnMap);
+
+		// friendlies
+		for (int i = in.getInt(); i > 0; i--) {
+			int id = in.getInt();
+			friendlyImages.put(id, game.images.getFriendly(game, id));
+			int lines = in.getInt();
+			if (lines < 0)
+				continue;
+			String[] speech = new String[lines];
+			for (int j = 0; j < lines; j++) {
+				byte[] bytes = new byte[in.getInt()];
+				in.get(bytes);
+				speech[j] = new String(bytes, StandardCharsets.UTF_8);
+			}
+			friendlySpeech.put(id, speech);
+		}
+
+		// entities
+		ArrayList<Placement> list = new ArrayList<Placement>();
+		for (int i = in.getInt(); i > 0; i--)
+			list.add(new Placement(Kind.values()[in.get()], in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt()));
+		placements = Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Reads a zone, from its compiled layout.bin if it is up to date, otherwise from layout.png. layout.bin is out of date when layout.png or
+	 * the files of a friendly it asks for changed since it was compiled.
+	 * 
+	 * @param zn
+	 * the zone number this zone is in the zones list
+	 * @param game
+	 * the game the images and tile size come from
+	 * @return
+	 * the zone as it was read
+	 */
+	public static ZoneTemplate load(int zn, Game game) {
+		String folder = "zones/zone" + (zn + 1) + "/";
+		File compiled = GraphicLoader.getResource(folder + "layout.bin");
+		if (compiledZones && compiled.exists())
+			try {
+				FileChannel channel = FileChannel.open(compiled.toPath(), StandardOpenOption.READ);
+				try {
+					ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+					if (in.getInt() == MAGIC && in.getInt() == VERSION) {
+						long source = in.getLong();
+						ArrayList<Integer> ids = new ArrayList<Integer>();
+						for (int i = in.getInt(); i > 0; i--)
+							ids.add(in.getInt());
+						if (source == checksum(zn, ids))
+							return new ZoneTemplate(in, ids, zn, game);
+					}
+					System.out.println(folder + "layout.bin is out of date, run game.ZoneCompiler");
+				} finally {
+					channel.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		return new ZoneTemplate(GraphicLoader.getImage(folder + "layout.png", false), zn, game);
+	}
+
+	/**
+	 * Writes this zone in the format load reads.
+	 * 
+	 * @param f
+	 * the file to write (layout.bin next to the layout.png it was read from)
+	 * @throws IOException
+	 * if the file can't be written or the files it was read from can't be read
+	 */
+	public void write(File f) throws IOException {
+		long source = checksum(zoneNumber, friendlyIds);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(source);
+			out.writeInt(friendlyIds.size());
+			for (int id : friendlyIds)
+				out.writeInt(id);
+
+			// tiles
+			out.writeInt(layout[0].length);
+			out.writeInt(layout.length);
+			for (Tile[] row : layout)
+				for (Tile temp : row) {
+					out.writeByte(temp == null ? 0 : temp.type.ordinal() + 1);
+					out.writeByte(temp == null ? 0 : temp.dir.ordinal());
+					out.writeByte(temp != null && temp.isCollidable ? 1 : 0);
+					out.writeShort(temp == null ? 0 : temp.tpZone);
+				}
+
+			// spawns
+			out.writeInt(spawns.size());
+			for (Map.Entry<Integer, Point2D.Double> spawn : spawns.entrySet()) {
+				out.writeInt(spawn.getKey());
+				out.writeDouble(spawn.getValue().x);
+				out.writeDouble(spawn.getValue().y);
+			}
+
+			// friendlies
+			out.writeInt(friendlyImages.size());
+			for (int id : friendlyImages.keySet()) {
+				out.writeInt(id);
+				String[] speech = friendlySpeech.get(id);
+				out.writeInt(speech == null ? -1 : speech.length);
+				if (speech != null)
+					for (String line : speech) {
+						byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+						out.writeInt(bytes.length);
+						out.write(bytes);
+					}
+			}
+
+			// entities
+			out.writeInt(placements.size());
+			for (Placement p : placements) {
+				out.writeByte(p.kind.ordinal());
+				out.writeInt(p.x);
+				out.writeInt(p.y);
+				out.writeInt(p.value);
+				out.writeInt(p.cost);
+				out.writeInt(p.friendly);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Gets a checksum of everything a compiled zone is made from, used to tell if it is out of date: the layout image, and for each friendly
+	 * the layout asks for, if its images exist and its speech.
+	 * 
+	 * @param zn
+	 * the zone number
+	 * @param friendlies
+	 * the friendly folders the layout asks for
+	 * @return
+	 * CRC32 of the files
+	 * @throws IOException
+	 * if a file can't be read
+	 */
+	public static long checksum(int zn, Collection<Integer> friendlies) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(Files.readAllBytes(GraphicLoader.getResource("zones/zone" + (zn + 1) + "/layout.png").toPath()));
+		for (int id : friendlies) {
+			String folder = "entities/friendly/" + id + "/";
+			File speech = GraphicLoader.getResource(folder + "speech.txt");
+			crc.update(id);
+			crc.update(GraphicLoader.getResource(folder + "main.png").exists() ? 1 : 0);
+			crc.update(speech.exists() ? 1 : 0);
+			if (speech.exists())
+				crc.update(Files.readAllBytes(speech.toPath()));
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Makes the tiles for a new zone. Tiles that never change are shared, locks are copied.
+	 * 
+	 * @return
+	 * the grid of tiles
+	 */
+	public Tile[][] copyLayout() {
+		Tile[][] copy = new Tile[layout.length][];
+		for (int row = 0; row < layout.length; row++) {
+			copy[row] = layout[row].clone();
+			for (int col = 0; col < copy[row].length; col++) {
+				Tile temp = copy[row][col];
+				if (temp == null)
+					continue;
+				switch (temp.type) {
+				case LOCK_I:
+				case LOCK_II:
+				case LOCK_III:
+					copy[row][col] = new Tile(temp.type, temp.dir, temp.isCollidable);
+					break;
+				default:
+					break;
+				}
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Gets the zones a teleport in this zone leads to.
+	 * 
+	 * @return
+	 * the zone numbers, each only once
+	 */
+	public List<Integer> neighbors() {
+		ArrayList<Integer> list = new ArrayList<Integer>();
+		for (Tile[] row : layout)
+			for (Tile temp : row)
+				if (temp != null && temp.type == Tile.Type.TELEPORT && temp.tpZone != zoneNumber && !list.contains(temp.tpZone))
+					list.add(temp.tpZone);
+		return list;
+	}
+
+	/**
+	 * Makes a new entity from a placement.
+	 * 
+	 * @param p
+	 * the placement
+	 * @param game
+	 * the game the entity is in
+	 * @return
+	 * the new entity
+	 */
+	public Entity create(Placement p, Game game) {
+		switch (p.kind) {
+		case FRIENDLY:
+			Friendly friendly = new Friendly(game, friendlyImages.get(p.friendly), p.x, p.y, false, null, p.value);
+			if (friendlySpeech.containsKey(p.friendly))
+				friendly.scene = new Scene(game, friendlySpeech.get(p.friendly));
+			return friendly;
+		case BASIC_ENEMY:
+			return new BasicEnemy(game, p.x, p.y);
+		case MINI_BOSS:
+			return new MiniBoss(game, p.x, p.y);
+		case FINAL_BOSS:
+			return new FinalBoss(game, p.x, p.y);
+		case MONEY:
+			return new Money(game, p.x, p.y, p.value);
+		case ITEM:
+			return new Item(game, p.x, p.y, p.value, p.cost);
+		case DESTRUCTIBLE:
+			ImageSheet images = p.value == 1 ? game.images.destructible1 : p.value == 2 ? game.images.destructible2 : game.images.destructible3;
+			return new Destructible(game, images, p.x, p.y, new Money(game, 1), new Money(game, 5), null);
+		}
+		return null;
+	}
+
+	// --------------------------------------------------------- LAYOUT
+
+	/** Lock directions by the red of their color (51 to 54) */
+	private static final Direction[] LOCK_DIRECTIONS = { Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST };
+	/** Lock types by the green of their color (51 to 53) */
+	private static final Tile.Type[] LOCK_TYPES = { Tile.Type.LOCK_I, Tile.Type.LOCK_II, Tile.Type.LOCK_III };
+
+	/**
+	 * What a color in a layout image makes.
+	 */
+	private static class Cell {
+		/** The tile (null for colors that don't make one) */
+		final Tile tile;
+		/** The entity placed on it, null for none */
+		final Kind kind;
+		/** Value, cost and friendly of the placement */
+		final int value, cost, friendly;
+		/** The spawn it is, -1 for none */
+		int spawn = -1;
+
+		Cell(Tile t) {
+			this(t, null, 0, 0, -1);
+		}
+
+		Cell(Tile t, Kind k, int value, int cost, int friendly) {
+			tile = t;
+			kind = k;
+			this.value = value;
+			this.cost = cost;
+			this.friendly = friendly;
+		}
+	}
+
+	/**
+	 * Creates layout based off of an image. The pixels are read all at once and each color is only worked out the first time it is seen.
+	 */
+	private Tile[][] createLayout(Image layoutImage, Map<Integer, Point2D.Double> spawns, ArrayList<Placement> placements, Game game) {
+		BufferedImage image = (BufferedImage) layoutImage;
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int tileRes = game.data.TILE_RES;
+		Tile[][] layout = new Tile[height][width];
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+		// colors worked out so far (layouts only use a few, and neighbors are usually the same)
+		Map<Integer, Cell> cells = new HashMap<Integer, Cell>();
+		int lastColor = -1;
+		Cell cell = null;
+
+		// for each pixel
+		for (int row = 0, i = 0; row < height; row++) {
+			for (int col = 0; col < width; col++, i++) {
+				int color = pixels[i] & 0xFFFFFF;
+				if (color != lastColor) {
+					cell = cells.get(color);
+					if (cell == null) {
+						cell = readColor(color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF, game);
+						cells.put(color, cell);
+					}
+					lastColor = color;
+				}
+
+				layout[row][col] = cell.tile;
+				if (cell.spawn >= 0)
+					spawns.put(cell.spawn, new Point2D.Double(col * tileRes + (tileRes / 2), row * tileRes + (tileRes / 2)));
+				if (cell.kind != null)
+					placements.add(new Placement(cell.kind, col * tileRes + (tileRes / 2), row * tileRes + (tileRes / 2), cell.value, cell.cost, cell.friendly));
+			}
+		}
+		return layout;
+	}
+
+	/**
+	 * Works out what a color in a layout image makes.
+	 * 
+	 * @return
+	 * the tile and entity the color makes
+	 */
+	private Cell readColor(int r, int g, int b, Game game) {
+		// could be a friendly, even if its folder doesn't exist yet
+		if (g == 255 && b <= 3)
+			friendlyIds.add(r);
+
+		// black -> wall
+		if (r == 0 && g == 0 && b == 0)
+			return new Cell(Tile.WALL);
+		// magenta -> pit
+		else if (r == 255 && g == 0 && b == 255)
+			return new Cell(Tile.PIT);
+		// blue -> spawn
+		else if (r == 0 && g <= 254 && b == 255) {
+			Cell spawn = new Cell(Tile.OPEN);
+			spawn.spawn = g;
+			return spawn;
+		}
+		// green -> friendly
+		else if (g == 255 && b >= 0 && b <= 3 && Zone.checkFile("/game_resources/entities/friendly/" + r + "/main.png")) {
+			if (!friendlyImages.containsKey(r)) {
+				friendlyImages.put(r, game.images.getFriendly(game, r));
+				if (Zone.checkFile("/game_resources/entities/friendly/" + r + "/speech.txt"))
+					friendlySpeech.put(r, new Scene(game, "/game_resources/entities/friendly/" + r + "/speech.txt", true).text.toArray(new String[0]));
+			}
+			return new Cell(Tile.OPEN, Kind.FRIENDLY, b, 0, r);
+		}
+		// yellow -> tp
+		else if (r == 255 && g == 255 && b == 0)
+			return new Cell(new Tile(zoneNumber + 1));
+		// other shade of yellow -> custom tp
+		else if (r == 255 && g == 255 && b > 0 && b < 255)
+			return new Cell(new Tile(b - 1));
+		// red -> enemy
+		else if (r == 255 && g == 0 && b == 0)
+			return new Cell(Tile.OPEN, Kind.BASIC_ENEMY, 0, 0, -1);
+		// cyan -> mini boss
+		else if (r == 0 && g == 255 && b == 255)
+			return new Cell(Tile.OPEN, Kind.MINI_BOSS, 0, 0, -1);
+		// cyanish -> final boss
+		else if (r == 1 && g == 255 && b == 255)
+			return new Cell(Tile.OPEN, Kind.FINAL_BOSS, 0, 0, -1);
+		// money
+		else if (r == 100 && g == 150 && b <= 3) {
+			switch (b) {
+			case 1:
+				return new Cell(Tile.OPEN, Kind.MONEY, 1, 0, -1);
+			case 2:
+				return new Cell(Tile.OPEN, Kind.MONEY, 5, 0, -1);
+			case 3:
+				return new Cell(Tile.OPEN, Kind.MONEY, 10, 0, -1);
+			}
+			return new Cell(Tile.OPEN);
+		}
+		// items
+		else if (r >= 100 && g == 150)
+			return new Cell(Tile.OPEN, Kind.ITEM, b, (r - 100) * 5, -1);
+		// locks (red 51 to 54 is N, E, S, W and green 51 to 53 is I, II, III)
+		else if (r >= 51 && r <= 54 && b == 150) {
+			if (g >= 51 && g <= 53)
+				return new Cell(new Tile(LOCK_TYPES[g - 51], LOCK_DIRECTIONS[r - 51], true));
+			return new Cell(null);
+		}
+		// destructibles
+		else if (g == 150 && b == 0) {
+			if (r >= 1 && r <= 3)
+				return new Cell(Tile.OPEN, Kind.DESTRUCTIBLE, r, 0, -1);
+			return new Cell(null);
+		}
+		// any other color -> open
+		else
+			return new Cell(Tile.OPEN);
+	}
+}
@@ -1,13 +1,16 @@
 package game.component.entities;
 
 import game.Game;
+import game.component.EntityGrid;
 import game.component.Tile;
 import game.component.entities.enemies.Enemy;
 import game.component.entities.environment.Destructible;
 import game.component.entities.friendlies.Friendly;
 import game.enums.Direction;
 import game.enums.EntityState;
+import game.graphics.OpacityMask;
 import game.graphics.images.ImageSheet;
+import game.graphics.images.TintCache;
 
 import java.awt.Color;
 import java.awt.Graphics;
@@ -16,7 +19,7 @@ import java.awt.Point;
 import java.awt.geom.Point2D;
 import java.awt.geom.Point2D.Double;
 import java.awt.image.BufferedImage;
-import java.awt.image.WritableRaster;
+import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -35,6 +38,8 @@ public abstract class Entity implements Comparable<Entity> {
 	public boolean isAlive = true;
 	/** The location of the entity in the zone */
 	public Point2D.Double loc = new Double();
+	/** The location of the entity at the start of the last update */
+	public Point2D.Double lastLoc = new Double();
 	/** Current state of the entity */
 	public EntityState status = EntityState.GROUND;
 
@@ -43,7 +48,7 @@ public abstract class Entity implements Comparable<Entity> {
 	/** How many ticks before the entity can be hit again */
 	protected int hitDelay = 10;
 	/** The max health of the entity */
-	protected int maxhp = 100;
+	public int maxhp = 100;
 	/** The current health of the entity */
 	public int hp = maxhp;
 	/** The damage the entity does */
@@ -72,6 +77,15 @@ public abstract class Entity implements Comparable<Entity> {
 
 	/** The tile location of the entity on the zone layout array */
 	public Point tilePos;
+	/** The grid of the zone this entity is in. Null if not in one */
+	public EntityGrid grid;
+	/** The cell this entity is in on the grid */
+	public int gridCell = -1;
+	/** Entities found by findNearby (only used by the update thread so it is shared) */
+	private static final ArrayList<Entity> nearby = new ArrayList<Entity>();
+
+	/** Red versions of images used when an entity is hit */
+	public static final TintCache damageTints = new TintCache(new Color(175, 0, 0), 256);
 
 	/** The entity this entity will drop on death */
 	public Entity[] entityDrops = null;
@@ -139,7 +153,7 @@ public abstract class Entity implements Comparable<Entity> {
 	 */
 	public int locXToScreen() {
 		int offset = -(currentImage.getWidth(null) / 2);
-		return (int) (loc.x - game.camera.bigXOffset() + offset);
+		return (int) (drawX() - game.camera.bigXOffset() + offset);
 	}
 
 	/**
@@ -150,7 +164,90 @@ public abstract class Entity implements Comparable<Entity> {
 	 */
 	public int locYToScreen() {
 		int offset = -(currentImage.getHeight(null) - (game.data.TILE_RES / 2));
-		return (int) (loc.y - game.camera.bigYOffset() + offset);
+		return (int) (drawY() - game.camera.bigYOffset() + offset);
+	}
+
+	/**
+	 * Gets the x location the entity is drawn at. Between the last and current location depending on how far the frame is between updates.
+	 * 
+	 * @return
+	 * the x location in the zone
+	 */
+	public double drawX() {
+		if (jumped())
+			return loc.x;
+		return lastLoc.x + (loc.x - lastLoc.x) * game.interpolation;
+	}
+
+	/**
+	 * Gets the y location the entity is drawn at. Between the last and current location depending on how far the frame is between updates.
+	 * 
+	 * @return
+	 * the y location in the zone
+	 */
+	public double drawY() {
+		if (jumped())
+			return loc.y;
+		return lastLoc.y + (loc.y - lastLoc.y) * game.interpolation;
+	}
+
+	/**
+	 * Checks if the entity moved too far in the last update to have walked there (teleports, respawns, new entities).
+	 * 
+	 * @return
+	 * if the entity should not be drawn between its last and current location
+	 */
+	private boolean jumped() {
+		return Math.abs(loc.x - lastLoc.x) > game.data.TILE_RES || Math.abs(loc.y - lastLoc.y) > game.data.TILE_RES;
+	}
+
+	/**
+	 * Checks if the entity's image is inside an area of the zone. Uses the last image created with a TILE_RES margin since the next one
+	 * might be a little bigger.
+	 * 
+	 * @param left
+	 * left edge of the area in pixels
+	 * @param top
+	 * top edge of the area in pixels
+	 * @param right
+	 * right edge of the area in pixels
+	 * @param bottom
+	 * bottom edge of the area in pixels
+	 * @return
+	 * if any of the entity might be inside the area
+	 */
+	public boolean inView(int left, int top, int right, int bottom) {
+		if (currentImage == null)
+			return true;
+		int margin = game.data.TILE_RES;
+		int width = currentImage.getWidth(null);
+		int height = currentImage.getHeight(null);
+		int x = (int) drawX() - (width / 2);
+		int y = (int) drawY() - (height - (game.data.TILE_RES / 2));
+		return x + width + margin > left && x - margin < right && y + height + margin > top && y - margin < bottom;
+	}
+
+	/**
+	 * Checks if the entity and its health bar are completely hidden under opaque tiles of the top layer anywhere between its last and
+	 * current location, so it doesn't need to be drawn.
+	 * 
+	 * @param mask
+	 * which tiles of the top layer are opaque, null if it isn't known
+	 * @return
+	 * if none of the entity can be seen
+	 */
+	public boolean hiddenBy(OpacityMask mask) {
+		if (mask == null || currentImage == null)
+			return false;
+		int res = game.data.TILE_RES;
+		int width = currentImage.getWidth(null);
+		int height = currentImage.getHeight(null);
+		// a pixel extra on each side for rounding
+		int left = (int) Math.floor(Math.min(loc.x, lastLoc.x)) - Math.max(width / 2, size / 2) - 1;
+		int right = (int) Math.ceil(Math.max(loc.x, lastLoc.x)) + Math.max(width - width / 2, size - size / 2) + 1;
+		int top = (int) Math.floor(Math.min(loc.y, lastLoc.y)) - (height - res / 2) - 1;
+		int bottom = (int) Math.ceil(Math.max(loc.y, lastLoc.y)) + Math.max(res / 2, res / 3 + 2) + 1;
+		return mask.covers(left, top, right, bottom);
 	}
 
 	/**
@@ -171,7 +268,7 @@ public abstract class Entity implements Comparable<Entity> {
 	}
 
 	/**
-	 * Makes image red maintaining alpha values. (did not write myself)
+	 * Makes image red maintaining alpha values. Red images are kept so each image only has to be made red once.
 	 * 
 	 * @param image
 	 * any image
@@ -179,23 +276,7 @@ public abstract class Entity implements Comparable<Entity> {
 	 * the red image
 	 */
 	public static BufferedImage damageImage(Image img) {
-
-		int width = img.getWidth(null);
-		int height = img.getHeight(null);
-		BufferedImage newImg = Game.copyImage(img);
-
-		WritableRaster raster = newImg.getRaster();
-
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				int[] pixel = raster.getPixel(x, y, (int[]) null);
-				pixel[0] = 175;
-				pixel[1] = 0;
-				pixel[2] = 0;
-				raster.setPixel(x, y, pixel);
-			}
-		}
-		return newImg;
+		return damageTints.get(img);
 	}
 
 	/**
@@ -207,9 +288,9 @@ public abstract class Entity implements Comparable<Entity> {
 	public void drawHp(Graphics g) {
 		if (isAlive) {
 			int xOffset = -(size / 2);
-			int x = (int) (loc.x - game.camera.bigXOffset() + xOffset);
+			int x = (int) (drawX() - game.camera.bigXOffset() + xOffset);
 			int yOffset = game.data.TILE_RES / 3;
-			int y = (int) (loc.y - game.camera.bigYOffset() + yOffset);
+			int y = (int) (drawY() - game.camera.bigYOffset() + yOffset);
 
 			Color original = g.getColor();
 			if (hp < maxhp && hp > 0) {
@@ -241,7 +322,7 @@ public abstract class Entity implements Comparable<Entity> {
 
 			if (drop != null) {
 				drop.loc.setLocation(new Point2D.Double(loc.x, loc.y));
-				game.data.currentZone.entities.add(drop);
+				game.data.currentZone.addEntity(drop);
 			}
 		}
 	}
@@ -249,97 +330,167 @@ public abstract class Entity implements Comparable<Entity> {
 	// --------------------------------------------------------- COLLISION
 
 	/**
-	 * Returns true if entity tries to walk into tangible tiles.
+	 * Returns true if entity tries to walk into tangible tiles or other entities.
 	 * 
 	 * @param direction
 	 * the direction the entity is facing
 	 * @return
 	 * if the player is colliding with an object in the specified direction
 	 */
-	protected boolean collision(Direction direction) {
+	public boolean collision(Direction direction) {
+		return wallCollision(direction) || entityCollision(direction);
+	}
+
+	/**
+	 * Returns true if entity tries to walk into tangible tiles.
+	 * 
+	 * @param direction
+	 * the direction the entity is facing
+	 * @return
+	 * if the entity is colliding with a tile in the specified direction
+	 */
+	protected boolean wallCollision(Direction direction) {
 
 		Point NE = new Point((int) (loc.x + size / 2), (int) (loc.y - size / 2));
 		Point SE = new Point((int) (loc.x + size / 2), (int) (loc.y + size / 2));
 		Point SW = new Point((int) (loc.x - size / 2), (int) (loc.y + size / 2));
 		Point NW = new Point((int) (loc.x - size / 2), (int) (loc.y - size / 2));
 
-		boolean knockedBack = false;
-		if (game.data.updateTick - startHitTick <= hitDelay)
-			knockedBack = true;
-
 		switch (direction) {
 		case NORTH:
 			if (game.data.currentZone.layout[(NE.y - 1) / game.data.TILE_RES][NE.x / game.data.TILE_RES].isCollidable // NE
 					|| game.data.currentZone.layout[(NW.y - 1) / game.data.TILE_RES][NW.x / game.data.TILE_RES].isCollidable) // NW
 				return true;
-
-			for (Entity e : game.data.currentZone.entities) {
-				boolean otherKnockedBack = false;
-				if (game.data.updateTick - e.startHitTick <= e.hitDelay && (e instanceof Friendly || e instanceof Enemy || e instanceof Player))
-					otherKnockedBack = true;
-
-				if (loc.y > e.loc.y && e.isAlive && (e instanceof Friendly || e instanceof Enemy || e instanceof Player || e instanceof Destructible) && !knockedBack && !otherKnockedBack) {
-					double distanceFromEntity = Math.sqrt((loc.x - e.loc.x) * (loc.x - e.loc.x) + (loc.y - e.loc.y) * (loc.y - e.loc.y));
-					if (distanceFromEntity <= (size / 2) + (e.size / 2))
-						return true;
-				}
-			}
 			break;
 		case EAST:
 			// wall
 			if (game.data.currentZone.layout[NE.y / game.data.TILE_RES][(NE.x + 1) / game.data.TILE_RES].isCollidable // NE
 					|| game.data.currentZone.layout[SE.y / game.data.TILE_RES][(SE.x + 1) / game.data.TILE_RES].isCollidable) // SE
 				return true;
-			// entities
-			for (Entity e : game.data.currentZone.entities) {
-				boolean otherKnockedBack = false;
-				if (game.data.updateTick - e.startHitTick <= e.hitDelay && (e instanceof Friendly || e instanceof Enemy || e instanceof Player))
-					otherKnockedBack = true;
-
-				if (loc.x < e.loc.x && e.isAlive && (e instanceof Friendly || e instanceof Enemy || e instanceof Player || e instanceof Destructible) && !knockedBack && !otherKnockedBack) {
-					double distanceFromEntity = Math.sqrt((loc.x - e.loc.x) * (loc.x - e.loc.x) + (loc.y - e.loc.y) * (loc.y - e.loc.y));
-					if (distanceFromEntity <= (size / 2) + (e.size / 2))
-						return true;
-				}
-			}
 			break;
 		case SOUTH:
 			// wall
 			if (game.data.currentZone.layout[(SE.y + 1) / game.data.TILE_RES][SE.x / game.data.TILE_RES].isCollidable // SE
 					|| game.data.currentZone.layout[(SW.y + 1) / game.data.TILE_RES][SW.x / game.data.TILE_RES].isCollidable) // SW
 				return true;
-			// entity
-			for (Entity e : game.data.currentZone.entities) {
-				boolean otherKnockedBack = false;
-				if (game.data.updateTick - e.startHitTick <= e.hitDelay && (e instanceof Friendly || e instanceof Enemy || e instanceof Player))
-					otherKnockedBack = true;
-
-				if (loc.y < e.loc.y && e.isAlive && (e instanceof Friendly || e instanceof Enemy || e instanceof Player || e instanceof Destructible) && !knockedBack && !otherKnockedBack) {
-					double distanceFromEntity = Math.sqrt((loc.x - e.loc.x) * (loc.x - e.loc.x) + (loc.y - e.loc.y) * (loc.y - e.loc.y));
-					if (distanceFromEntity <= (size / 2) + (e.size / 2))
-						return true;
-				}
-			}
 			break;
 		case WEST:
 			// wall
 			if (game.data.currentZone.layout[NW.y / game.data.TILE_RES][(NW.x - 1) / game.data.TILE_RES].isCollidable // NW
 					|| game.data.currentZone.layout[SW.y / game.data.TILE_RES][(SW.x - 1) / game.data.TILE_RES].isCollidable) // SW
 				return true;
-			// entity
-			for (Entity e : game.data.currentZone.entities) {
-				boolean otherKnockedBack = false;
-				if (game.data.updateTick - e.startHitTick <= e.hitDelay && (e instanceof Friendly || e instanceof Enemy || e instanceof Player))
-					otherKnockedBack = true;
-
-				if (loc.x > e.loc.x && e.isAlive && (e instanceof Friendly || e instanceof Enemy || e instanceof Player || e instanceof Destructible) && !knockedBack && !otherKnockedBack) {
-					double distanceFromEntity = Math.sqrt((loc.x - e.loc.x) * (loc.x - e.loc.x) + (loc.y - e.loc.y) * (loc.y - e.loc.y));
-					if (distanceFromEntity <= (size / 2) + (e.size / 2))
+			break;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if entity tries to walk into another entity. Only checks the grid cells close enough to hold one.
+	 * 
+	 * @param direction
+	 * the direction the entity is facing
+	 * @return
+	 * if the entity is colliding with another entity in the specified direction
+	 */
+	protected boolean entityCollision(Direction direction) {
+		// knocked back entities go through others
+		if (game.data.updateTick - startHitTick <= hitDelay)
+			return false;
+
+		EntityGrid zoneGrid = game.data.currentZone.grid;
+		int reach = size / 2 + zoneGrid.maxSize / 2;
+		int minCol = zoneGrid.colAt(loc.x - reach), maxCol = zoneGrid.colAt(loc.x + reach);
+		int minRow = zoneGrid.rowAt(loc.y - reach), maxRow = zoneGrid.rowAt(loc.y + reach);
+
+		for (int row = minRow; row <= maxRow; row++)
+			for (int col = minCol; col <= maxCol; col++) {
+				ArrayList<Entity> cell = zoneGrid.getCell(col, row);
+				if (cell == null)
+					continue;
+				for (int i = 0; i < cell.size(); i++)
+					if (blocks(cell.get(i), direction))
 						return true;
-				}
 			}
+		return false;
+	}
+
+	/**
+	 * Returns true if another entity is in the way of this one.
+	 * 
+	 * @param e
+	 * the other entity
+	 * @param direction
+	 * the direction this entity is facing
+	 * @return
+	 * if e is alive, solid, not knocked back and touching this entity in the specified direction
+	 */
+	private boolean blocks(Entity e, Direction direction) {
+		if (!e.isAlive || !(e instanceof Friendly || e instanceof Enemy || e instanceof Player || e instanceof Destructible))
+			return false;
+		// other entity is knocked back
+		if (game.data.updateTick - e.startHitTick <= e.hitDelay && !(e instanceof Destructible))
+			return false;
+
+		boolean inFront = false;
+		switch (direction) {
+		case NORTH:
+			inFront = loc.y > e.loc.y;
+			break;
+		case EAST:
+			inFront = loc.x < e.loc.x;
+			break;
+		case SOUTH:
+			inFront = loc.y < e.loc.y;
+			break;
+		case WEST:
+			inFront = loc.x > e.loc.x;
 			break;
 		}
+		if (!inFront)
+			return false;
+
+		double distanceSq = (loc.x - e.loc.x) * (loc.x - e.loc.x) + (loc.y - e.loc.y) * (loc.y - e.loc.y);
+		int touching = (size / 2) + (e.size / 2);
+		return distanceSq <= touching * touching;
+	}
+
+	/**
+	 * Fills nearby with every entity close enough to be touched while this entity moves from where it is now by x, y.
+	 * 
+	 * @param x
+	 * total distance the entity will move on the x-axis
+	 * @param y
+	 * total distance the entity will move on the y-axis
+	 */
+	private void findNearby(double x, double y) {
+		nearby.clear();
+		EntityGrid zoneGrid = game.data.currentZone.grid;
+		int reach = size / 2 + zoneGrid.maxSize / 2;
+		int minCol = zoneGrid.colAt(loc.x + Math.min(0, x) - reach), maxCol = zoneGrid.colAt(loc.x + Math.max(0, x) + reach);
+		int minRow = zoneGrid.rowAt(loc.y + Math.min(0, y) - reach), maxRow = zoneGrid.rowAt(loc.y + Math.max(0, y) + reach);
+
+		for (int row = minRow; row <= maxRow; row++)
+			for (int col = minCol; col <= maxCol; col++) {
+				ArrayList<Entity> cell = zoneGrid.getCell(col, row);
+				if (cell != null)
+					for (int i = 0; i < cell.size(); i++)
+						if (cell.get(i) != this)
+							nearby.add(cell.get(i));
+			}
+	}
+
+	/**
+	 * Returns true if one of the entities found by findNearby is in the way.
+	 * 
+	 * @param direction
+	 * the direction the entity is facing
+	 * @return
+	 * if the entity is colliding with another entity in the specified direction
+	 */
+	private boolean nearbyCollision(Direction direction) {
+		for (int i = 0; i < nearby.size(); i++)
+			if (blocks(nearby.get(i), direction))
+				return true;
 		return false;
 	}
 
@@ -384,5 +535,53 @@ public abstract class Entity implements Comparable<Entity> {
 			loc.x += x;
 		if (canMoveY)
 			loc.y += y;
+		if (grid != null && (canMoveX || canMoveY))
+			grid.moved(this);
+	}
+
+	/**
+	 * Moves the entity exactly like calling move(x, y) the specified amount of times, but only looks for nearby entities once for the whole
+	 * distance.
+	 * 
+	 * @param x
+	 * speed the entity is moving on x-axis each step
+	 * @param y
+	 * speed the entity is moving on y-axis each step
+	 * @param steps
+	 * amount of times to move
+	 */
+	public void sweep(double x, double y, int steps) {
+		if (steps < 1)
+			return;
+
+		// knocked back entities go through others
+		boolean checkEntities = game.data.updateTick - startHitTick > hitDelay;
+		if (checkEntities)
+			findNearby(x * steps, y * steps);
+
+		for (int i = 0; i < steps; i++) {
+			boolean canMoveX = true;
+			boolean canMoveY = true;
+
+			if (y < 0 && (wallCollision(Direction.NORTH) || checkEntities && nearbyCollision(Direction.NORTH)))
+				canMoveY = false;
+			if (y > 0 && (wallCollision(Direction.SOUTH) || checkEntities && nearbyCollision(Direction.SOUTH)))
+				canMoveY = false;
+			if (x > 0 && (wallCollision(Direction.EAST) || checkEntities && nearbyCollision(Direction.EAST)))
+				canMoveX = false;
+			if (x < 0 && (wallCollision(Direction.WEST) || checkEntities && nearbyCollision(Direction.WEST)))
+				canMoveX = false;
+
+			// stuck for the rest of the steps too
+			if (!canMoveX && !canMoveY)
+				break;
+
+			if (canMoveX)
+				loc.x += x;
+			if (canMoveY)
+				loc.y += y;
+		}
+		if (grid != null)
+			grid.moved(this);
 	}
 }
@@ -271,20 +271,16 @@ public class Player extends Entity {
 				game.player.status = EntityState.AIR;
 				switch (direction) {
 				case NORTH:
-					for (int i = 1; i <= jumpSpeed; i++)
-						move(0, -1);
+					sweep(0, -1, (int) jumpSpeed);
 					break;
 				case EAST:
-					for (int i = 1; i <= jumpSpeed; i++)
-						move(1, 0);
+					sweep(1, 0, (int) jumpSpeed);
 					break;
 				case SOUTH:
-					for (int i = 1; i <= jumpSpeed; i++)
-						move(0, 1);
+					sweep(0, 1, (int) jumpSpeed);
 					break;
 				case WEST:
-					for (int i = 1; i <= jumpSpeed; i++)
-						move(-1, 0);
+					sweep(-1, 0, (int) jumpSpeed);
 					break;
 				}
 			}
@@ -296,15 +292,15 @@ public class Player extends Entity {
 			Item selected = inventory.getSelected();
 			if (lock != null && selected != null) {
 				if (lock.type == Tile.Type.LOCK_I && selected.ID == Item.KEY_I) {
-					game.data.currentZone.layout[lock.y][lock.x].openLock();
+					game.data.currentZone.openLock(lock.x, lock.y);
 					inventory.removeSelected();
 				}
 				if (lock.type == Tile.Type.LOCK_II && selected.ID == Item.KEY_II) {
-					game.data.currentZone.layout[lock.y][lock.x].openLock();
+					game.data.currentZone.openLock(lock.x, lock.y);
 					inventory.removeSelected();
 				}
 				if (lock.type == Tile.Type.LOCK_III && selected.ID == Item.KEY_III) {
-					game.data.currentZone.layout[lock.y][lock.x].openLock();
+					game.data.currentZone.openLock(lock.x, lock.y);
 					inventory.removeSelected();
 				}
 			}
@@ -352,38 +348,30 @@ public class Player extends Entity {
 				double angleSpeed = Math.sin(Math.toRadians(45));
 
 				if (movingNorth && movingWest) {
-					for (int i = 1; i <= speed; i++)
-						move(-angleSpeed, -angleSpeed);
+					sweep(-angleSpeed, -angleSpeed, (int) speed);
 					direction = Direction.WEST;
 				} else if (movingNorth && movingEast) {
-					for (int i = 1; i <= speed; i++)
-						move(angleSpeed, -angleSpeed);
+					sweep(angleSpeed, -angleSpeed, (int) speed);
 					direction = Direction.EAST;
 				} else if (movingSouth && movingWest) {
-					for (int i = 1; i <= speed; i++)
-						move(-angleSpeed, angleSpeed);
+					sweep(-angleSpeed, angleSpeed, (int) speed);
 					direction = Direction.WEST;
 				} else if (movingSouth && movingEast) {
-					for (int i = 1; i <= speed; i++)
-						move(angleSpeed, angleSpeed);
+					sweep(angleSpeed, angleSpeed, (int) speed);
 					direction = Direction.EAST;
 				}
 
 				else if (movingNorth) {
-					for (int i = 1; i <= speed; i++)
-						move(0, -1);
+					sweep(0, -1, (int) speed);
 					direction = Direction.NORTH;
 				} else if (movingSouth) {
-					for (int i = 1; i <= speed; i++)
-						move(0, 1);
+					sweep(0, 1, (int) speed);
 					direction = Direction.SOUTH;
 				} else if (movingEast) {
-					for (int i = 1; i <= speed; i++)
-						move(1, 0);
+					sweep(1, 0, (int) speed);
 					direction = Direction.EAST;
 				} else if (movingWest) {
-					for (int i = 1; i <= speed; i++)
-						move(-1, 0);
+					sweep(-1, 0, (int) speed);
 					direction = Direction.WEST;
 				}
 			}
@@ -406,11 +394,11 @@ public class Player extends Entity {
 		} else if (lives >= 0 && respawnDelay <= game.data.updateTick - lastDeathTick) {
 			// tp //
 			// custom spawn
-			if (game.data.zones.get(game.data.currentZoneNumber).spawns.get(game.player.previousZone + 1) != null)
-				game.player.loc.setLocation(game.data.zones.get(game.data.currentZoneNumber).spawns.get(game.player.previousZone + 1));
+			if (game.data.getZone(game.data.currentZoneNumber).spawns.get(game.player.previousZone + 1) != null)
+				game.player.loc.setLocation(game.data.getZone(game.data.currentZoneNumber).spawns.get(game.player.previousZone + 1));
 			// default spawn
 			else
-				game.player.loc.setLocation(game.data.zones.get(game.data.currentZoneNumber).spawns.get(0));
+				game.player.loc.setLocation(game.data.getZone(game.data.currentZoneNumber).spawns.get(0));
 			// reset //
 			isAlive = true;
 			hp = maxhp;
@@ -128,9 +128,9 @@ public class FinalBoss extends Enemy {
 				DividedBoss one = new DividedBoss(game, (int) (loc.x - 20), (int) (loc.y));
 				DividedBoss two = new DividedBoss(game, (int) (loc.x), (int) (loc.y - 20));
 				DividedBoss three = new DividedBoss(game, (int) (loc.x + 20), (int) (loc.y));
-				game.data.currentZone.entities.add(one);
-				game.data.currentZone.entities.add(two);
-				game.data.currentZone.entities.add(three);
+				game.data.currentZone.addEntity(one);
+				game.data.currentZone.addEntity(two);
+				game.data.currentZone.addEntity(three);
 				droppedEntity = true;
 			}
 		}
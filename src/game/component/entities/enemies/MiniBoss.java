@@ -135,7 +135,7 @@ public class MiniBoss extends Enemy {
 			Entity drop = entityDrops[rand];
 			if (drop != null) {
 				drop.loc.setLocation(new Point2D.Double(loc.x, loc.y));
-				game.data.currentZone.entities.add(drop);
+				game.data.currentZone.addEntity(drop);
 			}
 		}
 		// movement values //
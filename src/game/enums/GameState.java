@@ -6,5 +6,5 @@ package game.enums;
  * @author Anthony DePaul
  */
 public enum GameState {
-	MAIN_MENU, CONTROLS_MENU, PAUSED, SCENE, PLAYING, WIN, LOSE
+	MAIN_MENU, CONTROLS_MENU, LOADING, PAUSED, SCENE, PLAYING, WIN, LOSE
 }
@@ -1,6 +1,7 @@
 package game.graphics;
 
 import game.Game;
+import game.component.Zone;
 
 /**
  * Finds values to offset the zone relative to the screen to make it look nice.
@@ -28,9 +29,7 @@ public class Camera {
 	 * @return the distance from the left side of the screen to left edge of the zone
 	 */
 	public int smallXOffset() {
-		if (game.data.currentZone.layout[0].length < game.data.TILES_WIDE)
-			return (game.data.WIDTH - game.data.currentZone.WIDTH) / 2;
-		return 0;
+		return smallXOffset(game.data.currentZone);
 	}
 
 	/**
@@ -39,9 +38,7 @@ public class Camera {
 	 * @return the distance from the top of the screen to top edge of the zone
 	 */
 	public int smallYOffset() {
-		if (game.data.currentZone.layout.length < game.data.TILES_HIGH)
-			return (game.data.HEIGHT - game.data.currentZone.HEIGHT) / 2;
-		return 0;
+		return smallYOffset(game.data.currentZone);
 	}
 
 	/**
@@ -50,13 +47,7 @@ public class Camera {
 	 * @return the distance from the left side of the screen to left edge of the zone
 	 */
 	public int bigXOffset() {
-		if (game.data.currentZone.layout[0].length > game.data.TILES_WIDE)
-			if (game.player.loc.x > game.data.WIDTH / 2) // away from left wall
-				if (game.player.loc.x < game.data.currentZone.WIDTH - game.data.WIDTH / 2) // away from right wall
-					return (int) (game.player.loc.x - (game.data.WIDTH / 2)); // middle
-				else
-					return game.data.currentZone.WIDTH - game.data.WIDTH; // against right wall
-		return 0; // small or right size or against left wall
+		return bigXOffset(game.data.currentZone, game.player.drawX());
 	}
 
 	/**
@@ -65,12 +56,70 @@ public class Camera {
 	 * @return the distance from the top of the screen to top edge of the zone
 	 */
 	public int bigYOffset() {
-		if (game.data.currentZone.layout.length > game.data.TILES_HIGH)
-			if (game.player.loc.y > game.data.HEIGHT / 2) // away from top wall
-				if (game.player.loc.y < game.data.currentZone.HEIGHT - game.data.HEIGHT / 2) // away from bottom wall
-					return (int) (game.player.loc.y - (game.data.HEIGHT / 2)); // middle
+		return bigYOffset(game.data.currentZone, game.player.drawY());
+	}
+
+	/**
+	 * Offsets a zone if it is not as wide as the screen and centers it.
+	 * 
+	 * @param zone
+	 * the zone being drawn
+	 * @return the distance from the left side of the screen to left edge of the zone
+	 */
+	public int smallXOffset(Zone zone) {
+		if (zone.layout[0].length < game.data.TILES_WIDE)
+			return (game.data.WIDTH - zone.WIDTH) / 2;
+		return 0;
+	}
+
+	/**
+	 * Offsets a zone if it is not as high as the screen and centers it.
+	 * 
+	 * @param zone
+	 * the zone being drawn
+	 * @return the distance from the top of the screen to top edge of the zone
+	 */
+	public int smallYOffset(Zone zone) {
+		if (zone.layout.length < game.data.TILES_HIGH)
+			return (game.data.HEIGHT - zone.HEIGHT) / 2;
+		return 0;
+	}
+
+	/**
+	 * Offsets a zone if it is wider than the screen.
+	 * 
+	 * @param zone
+	 * the zone being drawn
+	 * @param playerX
+	 * the x location the player is drawn at
+	 * @return the distance from the left side of the screen to left edge of the zone
+	 */
+	public int bigXOffset(Zone zone, double playerX) {
+		if (zone.layout[0].length > game.data.TILES_WIDE)
+			if (playerX > game.data.WIDTH / 2) // away from left wall
+				if (playerX < zone.WIDTH - game.data.WIDTH / 2) // away from right wall
+					return (int) (playerX - (game.data.WIDTH / 2)); // middle
+				else
+					return zone.WIDTH - game.data.WIDTH; // against right wall
+		return 0; // small or right size or against left wall
+	}
+
+	/**
+	 * Offsets a zone if it is higher than the screen.
+	 * 
+	 * @param zone
+	 * the zone being drawn
+	 * @param playerY
+	 * the y location the player is drawn at
+	 * @return the distance from the top of the screen to top edge of the zone
+	 */
+	public int bigYOffset(Zone zone, double playerY) {
+		if (zone.layout.length > game.data.TILES_HIGH)
+			if (playerY > game.data.HEIGHT / 2) // away from top wall
+				if (playerY < zone.HEIGHT - game.data.HEIGHT / 2) // away from bottom wall
+					return (int) (playerY - (game.data.HEIGHT / 2)); // middle
 				else
-					return game.data.currentZone.HEIGHT - game.data.HEIGHT; // against bottom wall
+					return zone.HEIGHT - game.data.HEIGHT; // against bottom wall
 		return 0; // small or right size or against top wall
 	}
 }
@@ -0,0 +1,58 @@
+package game.graphics;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicLong;
+
+import game.Game;
+
+/**
+ * An image that is kept between frames and is only recreated when its size needs to change.
+ * 
+ * @author Anthony DePaul
+ */
+public class FrameBuffer {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** Amount of images created by all frame buffers */
+	public static AtomicLong totalAllocations = new AtomicLong();
+	/** Amount of images created by this frame buffer */
+	public long allocations = 0;
+	/** The image reused every frame */
+	private BufferedImage image;
+	/** The transparency of the image */
+	private int transparency;
+
+	// --------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * An image that is kept between frames and is only recreated when its size needs to change.
+	 * 
+	 * @param t
+	 * the transparency of the image (Transparency.OPAQUE, Transparency.BITMASK or Transparency.TRANSLUCENT)
+	 */
+	public FrameBuffer(int t) {
+		transparency = t;
+	}
+
+	/**
+	 * Gets the image, creating a new one only if there isn't one of the right size yet.
+	 * 
+	 * @param width
+	 * width of the image in pixels
+	 * @param height
+	 * height of the image in pixels
+	 * @return
+	 * a width x height image (contents are left over from the last frame)
+	 */
+	public BufferedImage get(int width, int height) {
+		if (image == null || image.getWidth() != width || image.getHeight() != height) {
+			if (image != null)
+				image.flush();
+			image = Game.createCompatibleImage(width, height, transparency);
+			allocations++;
+			totalAllocations.incrementAndGet();
+		}
+		return image;
+	}
+}
@@ -0,0 +1,214 @@
+package game.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A copy of a zone layer kept in a VolatileImage so drawing it can stay in accelerated memory. The copy is remade when the layer changes
+ * or its contents are lost, and the layer itself is used when a VolatileImage can't be made.
+ * 
+ * @author Anthony DePaul
+ */
+public class LayerCache {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** If layers are copied into VolatileImages (-Dgame.volatileLayers=false to always draw the BufferedImages) */
+	public static boolean volatileLayers = !"false".equals(System.getProperty("game.volatileLayers"));
+
+	/** Amount of times any layer was copied into its VolatileImage */
+	public static AtomicLong totalCopies = new AtomicLong();
+	/** The accelerated copy, null if there isn't one */
+	private VolatileImage image;
+	/** The screen the copy was made for */
+	private GraphicsConfiguration config;
+	/** The layer the copy was made from */
+	private Image source;
+	/** Version of the layer the copy was made from */
+	private int version;
+	/** If VolatileImages couldn't be made, so the layer is always used */
+	private boolean unsupported = false;
+
+	// --------------------------------------------------------- DRAWING
+
+	/**
+	 * Gets the copy of a layer, making it or copying the layer again if needed.
+	 * 
+	 * @param gc
+	 * the screen the copy is drawn on (the canvas's getGraphicsConfiguration, null if it isn't on one)
+	 * @param layer
+	 * the layer image
+	 * @param v
+	 * changes whenever what is in the layer changes (like Zone.bottomVersion)
+	 * @return
+	 * the copy, or the layer itself if there can't be a copy
+	 */
+	public Image get(GraphicsConfiguration gc, Image layer, int v) {
+		if (!volatileLayers || unsupported || layer == null || gc == null)
+			return layer;
+
+		int width = layer.getWidth(null);
+		int height = layer.getHeight(null);
+		int transparency = layer instanceof Transparency ? ((Transparency) layer).getTransparency() : Transparency.TRANSLUCENT;
+
+		// new size, format or screen
+		if (image == null || gc != config || image.getWidth() != width || image.getHeight() != height || image.getTransparency() != transparency)
+			if (!create(gc, width, height, transparency))
+				return layer;
+
+		int status = image.validate(config);
+		if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+			if (!create(gc, width, height, transparency))
+				return layer;
+			status = VolatileImage.IMAGE_RESTORED;
+		}
+
+		// restored copies are empty
+		if (status == VolatileImage.IMAGE_RESTORED || layer != source || v != version) {
+			Graphics2D g = image.createGraphics();
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(layer, 0, 0, null);
+			g.dispose();
+			source = layer;
+			version = v;
+			totalCopies.incrementAndGet();
+		}
+
+		// lost while copying, use the layer this frame
+		if (image.contentsLost()) {
+			source = null;
+			return layer;
+		}
+		return image;
+	}
+
+	/**
+	 * Draws part of a layer through its copy. If the copy is lost while drawing, the layer is drawn instead.
+	 * 
+	 * @param g
+	 * the graphics to draw on
+	 * @param gc
+	 * the screen the copy is drawn on
+	 * @param layer
+	 * the layer image
+	 * @param v
+	 * changes whenever what is in the layer changes
+	 * @param x
+	 * left of the part of the layer to draw
+	 * @param y
+	 * top of the part of the layer to draw
+	 * @param width
+	 * width of the part of the layer to draw
+	 * @param height
+	 * height of the part of the layer to draw
+	 */
+	public void draw(Graphics2D g, GraphicsConfiguration gc, Image layer, int v, int x, int y, int width, int height) {
+		Image img = get(gc, layer, v);
+		g.drawImage(img, 0, 0, width, height, x, y, x + width, y + height, null);
+		if (img != layer && image.contentsLost()) {
+			source = null;
+			g.drawImage(layer, 0, 0, width, height, x, y, x + width, y + height, null);
+		}
+	}
+
+	/**
+	 * Draws a whole layer through its copy at the specified location. If the copy is lost while drawing, the layer is drawn instead.
+	 * 
+	 * @param g
+	 * the graphics to draw on
+	 * @param gc
+	 * the screen the copy is drawn on
+	 * @param layer
+	 * the layer image
+	 * @param v
+	 * changes whenever what is in the layer changes
+	 * @param x
+	 * where to draw the left of the layer
+	 * @param y
+	 * where to draw the top of the layer
+	 */
+	public void draw(Graphics2D g, GraphicsConfiguration gc, Image layer, int v, int x, int y) {
+		Image img = get(gc, layer, v);
+		g.drawImage(img, x, y, null);
+		if (img != layer && image.contentsLost()) {
+			source = null;
+			g.drawImage(layer, x, y, null);
+		}
+	}
+
+	/**
+	 * Draws the tiles of a layer that aren't empty through its copy (see OpacityMask.draw). If the copy is lost while drawing, the layer is
+	 * drawn instead.
+	 * 
+	 * @param g
+	 * the graphics to draw on
+	 * @param gc
+	 * the screen the copy is drawn on
+	 * @param layer
+	 * the layer, or a piece of it
+	 * @param v
+	 * changes whenever what is in the layer changes
+	 * @param mask
+	 * which tiles of the layer have something in them
+	 * @param scale
+	 * how many times bigger than the zone the layer is
+	 * @param layerX
+	 * where the left of the layer is in the zone
+	 * @param layerY
+	 * where the top of the layer is in the zone
+	 * @param left
+	 * left of the part of the zone
+	 * @param top
+	 * top of the part of the zone
+	 * @param width
+	 * width of the part of the zone
+	 * @param height
+	 * height of the part of the zone
+	 */
+	public void draw(Graphics2D g, GraphicsConfiguration gc, Image layer, int v, OpacityMask mask, int scale, int layerX, int layerY, int left, int top, int width, int height) {
+		Image img = get(gc, layer, v);
+		mask.draw(g, img, scale, layerX, layerY, left, top, width, height);
+		if (img != layer && image.contentsLost()) {
+			source = null;
+			mask.draw(g, layer, scale, layerX, layerY, left, top, width, height);
+		}
+	}
+
+	/**
+	 * Lets go of the copy. A new one is made the next time the layer is drawn.
+	 */
+	public void flush() {
+		if (image != null)
+			image.flush();
+		image = null;
+		source = null;
+	}
+
+	/**
+	 * Makes the VolatileImage.
+	 * 
+	 * @return
+	 * false if it couldn't be made (the layer will always be used from now on)
+	 */
+	private boolean create(GraphicsConfiguration gc, int width, int height, int transparency) {
+		if (image != null)
+			image.flush();
+		source = null;
+		config = gc;
+		try {
+			image = gc.createCompatibleVolatileImage(width, height, transparency);
+		} catch (RuntimeException e) {
+			image = null;
+		}
+		if (image == null) {
+			unsupported = true;
+			return false;
+		}
+		return true;
+	}
+}
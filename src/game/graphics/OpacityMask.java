@@ -0,0 +1,218 @@
+package game.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Which tiles of a layer are empty, fully opaque or partly see through. Used to only draw the tiles of the top layer that have something
+ * in them and to skip entities the top layer completely hides.
+ * 
+ * @author Anthony DePaul
+ */
+public class OpacityMask {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** If the top layer is drawn and hides entities by its mask (-Dgame.topMask=false to draw the whole layer and every entity) */
+	public static boolean topMask = !"false".equals(System.getProperty("game.topMask"));
+
+	/** Nothing is drawn in the tile */
+	public static final byte EMPTY = 0;
+	/** Every pixel of the tile is fully opaque */
+	public static final byte OPAQUE = 1;
+	/** Some pixels of the tile can be seen through */
+	public static final byte MIXED = 2;
+
+	/** The kind of each tile by [row][col] */
+	public final byte[][] tiles;
+	/** Size of a tile in pixels */
+	public final int tileRes;
+
+	// --------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Finds the kind of every tile of an image.
+	 * 
+	 * @param image
+	 * the layer image
+	 * @param res
+	 * size of a tile in pixels
+	 */
+	public OpacityMask(Image image, int res) {
+		tileRes = res;
+		int width = image.getWidth(null);
+		int height = image.getHeight(null);
+		int cols = (width + res - 1) / res;
+		int rows = (height + res - 1) / res;
+		tiles = new byte[rows][cols];
+
+		// nothing to look at, or nothing can be seen through
+		if (!(image instanceof BufferedImage)) {
+			fill(MIXED);
+			return;
+		}
+		BufferedImage b = (BufferedImage) image;
+		if (b.getTransparency() == Transparency.OPAQUE) {
+			fill(OPAQUE);
+			return;
+		}
+		// indexed images have no alpha raster, their pixels are read whole
+		WritableRaster alpha = b.getAlphaRaster();
+		int max = alpha == null ? 255 : (1 << alpha.getSampleModel().getSampleSize(0)) - 1;
+
+		// the alpha of a row of tiles at a time
+		int[] pixels = new int[width * res];
+		for (int row = 0; row < rows; row++) {
+			int y = row * res;
+			int h = Math.min(res, height - y);
+			if (alpha != null)
+				alpha.getSamples(0, y, width, h, 0, pixels);
+			else {
+				b.getRGB(0, y, width, h, pixels, 0, width);
+				for (int i = 0; i < width * h; i++)
+					pixels[i] >>>= 24;
+			}
+			for (int col = 0; col < cols; col++) {
+				int x = col * res;
+				int w = Math.min(res, width - x);
+				boolean clear = false;
+				boolean solid = false;
+				for (int py = 0; py < h && !(clear && solid); py++)
+					for (int i = py * width + x, end = i + w; i < end; i++) {
+						if (pixels[i] == max)
+							solid = true;
+						else if (pixels[i] == 0)
+							clear = true;
+						else
+							clear = solid = true;
+					}
+				tiles[row][col] = solid ? (clear ? MIXED : OPAQUE) : EMPTY;
+			}
+		}
+	}
+
+	/**
+	 * Sets every tile to the same kind.
+	 */
+	private void fill(byte kind) {
+		for (byte[] row : tiles)
+			Arrays.fill(row, kind);
+	}
+
+	// --------------------------------------------------------- CHECKS
+
+	/**
+	 * Checks if every tile in a block of tiles is empty.
+	 * 
+	 * @param firstCol
+	 * left column of the block
+	 * @param firstRow
+	 * top row of the block
+	 * @param lastCol
+	 * right column of the block
+	 * @param lastRow
+	 * bottom row of the block
+	 * @return
+	 * if nothing is drawn in the block
+	 */
+	public boolean isEmpty(int firstCol, int firstRow, int lastCol, int lastRow) {
+		for (int row = Math.max(0, firstRow); row <= Math.min(tiles.length - 1, lastRow); row++)
+			for (int col = Math.max(0, firstCol); col <= Math.min(tiles[0].length - 1, lastCol); col++)
+				if (tiles[row][col] != EMPTY)
+					return false;
+		return true;
+	}
+
+	/**
+	 * Checks if part of the layer is completely covered by opaque tiles.
+	 * 
+	 * @param left
+	 * left of the part in pixels
+	 * @param top
+	 * top of the part in pixels
+	 * @param right
+	 * right of the part in pixels (not included)
+	 * @param bottom
+	 * bottom of the part in pixels (not included)
+	 * @return
+	 * if nothing under the part can be seen
+	 */
+	public boolean covers(int left, int top, int right, int bottom) {
+		if (left < 0 || top < 0 || right <= left || bottom <= top)
+			return false;
+		int lastCol = (right - 1) / tileRes;
+		int lastRow = (bottom - 1) / tileRes;
+		if (lastRow >= tiles.length || lastCol >= tiles[0].length)
+			return false;
+		for (int row = top / tileRes; row <= lastRow; row++)
+			for (int col = left / tileRes; col <= lastCol; col++)
+				if (tiles[row][col] != OPAQUE)
+					return false;
+		return true;
+	}
+
+	// --------------------------------------------------------- DRAWING
+
+	/**
+	 * Draws the tiles of a layer that aren't empty in part of the zone, joining tiles next to each other in a row into one draw. The part is
+	 * drawn at 0, 0.
+	 * 
+	 * @param g
+	 * the graphics to draw on
+	 * @param image
+	 * the layer, or a piece of it
+	 * @param scale
+	 * how many times bigger than the zone the image is (the part is drawn that many times bigger too)
+	 * @param imageX
+	 * where the left of the image is in the zone
+	 * @param imageY
+	 * where the top of the image is in the zone
+	 * @param left
+	 * left of the part of the zone
+	 * @param top
+	 * top of the part of the zone
+	 * @param width
+	 * width of the part of the zone
+	 * @param height
+	 * height of the part of the zone
+	 */
+	public void draw(Graphics2D g, Image image, int scale, int imageX, int imageY, int left, int top, int width, int height) {
+		int imageRight = imageX + image.getWidth(null) / scale;
+		int imageBottom = imageY + image.getHeight(null) / scale;
+		int firstCol = Math.max(imageX, left) / tileRes;
+		int firstRow = Math.max(imageY, top) / tileRes;
+		int lastCol = Math.min(tiles[0].length * tileRes, Math.min(imageRight, left + width)) - 1;
+		int lastRow = Math.min(tiles.length * tileRes, Math.min(imageBottom, top + height)) - 1;
+		if (lastCol < 0 || lastRow < 0)
+			return;
+		lastCol /= tileRes;
+		lastRow /= tileRes;
+
+		for (int row = firstRow; row <= lastRow; row++) {
+			byte[] kinds = tiles[row];
+			int y = row * tileRes;
+			int h = Math.min(tileRes, imageBottom - y);
+			int col = firstCol;
+			while (col <= lastCol) {
+				if (kinds[col] == EMPTY) {
+					col++;
+					continue;
+				}
+				int start = col;
+				while (col <= lastCol && kinds[col] != EMPTY)
+					col++;
+				int x = start * tileRes;
+				int w = Math.min(col * tileRes, imageRight) - x;
+				int dx = (x - left) * scale;
+				int dy = (y - top) * scale;
+				int sx = (x - imageX) * scale;
+				int sy = (y - imageY) * scale;
+				g.drawImage(image, dx, dy, dx + w * scale, dy + h * scale, sx, sy, sx + w * scale, sy + h * scale, null);
+			}
+		}
+	}
+}
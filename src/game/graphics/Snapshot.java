@@ -0,0 +1,215 @@
+package game.graphics;
+
+import game.Game;
+import game.component.Zone;
+import game.component.ZoneChunks;
+import game.component.ZoneLoader;
+import game.component.entities.Entity;
+import game.enums.GameState;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.util.ArrayList;
+
+/**
+ * What the render thread needs to draw one update of the game. Filled in by the simulation thread after each update and never changed
+ * while the render thread has it.
+ * 
+ * @author Anthony DePaul
+ */
+public class Snapshot {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** Counts up every time a snapshot is published (-1 if never published) */
+	public long tick = -1;
+	/** System.nanoTime() when the snapshot was taken */
+	public long time;
+	/** The state of the game */
+	public GameState status;
+	/** The zone the player is in (only its size is used when drawing) */
+	public Zone zone;
+	/** The top and bottom images of the zone and its top mask */
+	public ZoneLoader.Layers layers;
+	/** The layers of the zone cut into chunks (null when the whole layers are drawn) */
+	public ZoneChunks chunks;
+	/** The bottom layer of the zone with the locks drawn on it (null when the layers are drawn in chunks) */
+	public Image bottom;
+	/** Zone.bottomVersion of the bottom image */
+	public int bottomVersion;
+	/** The player's sprite */
+	public Sprite player;
+	/** The sprites on screen sorted by y position (reused between snapshots) */
+	private ArrayList<Sprite> sprites = new ArrayList<Sprite>();
+	/** Amount of sprites in use */
+	public int count;
+
+	// --------------------------------------------------------- SPRITE
+
+	/**
+	 * How one entity is drawn.
+	 */
+	public static class Sprite {
+		/** The image of the entity */
+		public Image image;
+		/** The location of the entity at the start of the update */
+		public double lastX, lastY;
+		/** The location of the entity at the end of the update */
+		public double x, y;
+		/** Size of entity (diameter) */
+		public int size;
+		/** Health of the entity */
+		public int hp, maxhp;
+		/** If the entity is alive */
+		public boolean isAlive;
+
+		/**
+		 * Gets the x location the sprite is drawn at. Same as Entity.drawX().
+		 * 
+		 * @param t
+		 * how far the frame is between updates (0 to 1)
+		 * @param tileRes
+		 * moves longer than this are not drawn in between
+		 * @return
+		 * the x location in the zone
+		 */
+		public double drawX(double t, int tileRes) {
+			if (Math.abs(x - lastX) > tileRes || Math.abs(y - lastY) > tileRes)
+				return x;
+			return lastX + (x - lastX) * t;
+		}
+
+		/**
+		 * Gets the y location the sprite is drawn at. Same as Entity.drawY().
+		 * 
+		 * @param t
+		 * how far the frame is between updates (0 to 1)
+		 * @param tileRes
+		 * moves longer than this are not drawn in between
+		 * @return
+		 * the y location in the zone
+		 */
+		public double drawY(double t, int tileRes) {
+			if (Math.abs(x - lastX) > tileRes || Math.abs(y - lastY) > tileRes)
+				return y;
+			return lastY + (y - lastY) * t;
+		}
+	}
+
+	// --------------------------------------------------------- TAKING
+
+	/**
+	 * Copies what is needed to draw the game. Must be called on the simulation thread.
+	 * 
+	 * @param game
+	 * the game to copy
+	 */
+	public void take(Game game) {
+		time = System.nanoTime();
+		status = game.data.status;
+		count = 0;
+		player = null;
+		if (status != GameState.PLAYING)
+			return;
+
+		zone = game.data.currentZone;
+
+		// entities near the screen (TILE_RES margin covers the camera moving before the next snapshot)
+		int viewLeft = game.camera.bigXOffset();
+		int viewTop = game.camera.bigYOffset();
+		int viewRight = viewLeft + Math.min(game.data.WIDTH, zone.WIDTH);
+		int viewBottom = viewTop + Math.min(game.data.HEIGHT, zone.HEIGHT);
+
+		// the layers are made here so the render thread only draws them and never asks the zone
+		layers = zone.getLayers();
+		if (Game.chunkedLayers()) {
+			bottom = null;
+			chunks = zone.getChunks();
+			int res = game.data.TILE_RES;
+			chunks.prepare(layers, game.layerScale(), viewLeft - res, viewTop - res, viewRight - viewLeft + res * 2, viewBottom - viewTop + res * 2);
+		} else {
+			bottom = zone.getBottomImage();
+			chunks = null;
+		}
+		bottomVersion = zone.bottomVersion;
+
+		// entities under roofs aren't copied
+		OpacityMask mask = layers.topMask;
+		ArrayList<Entity> drawOrder = zone.getDrawOrder(game.player);
+		for (int i = 0; i < drawOrder.size(); i++) {
+			Entity e = drawOrder.get(i);
+			if (e == game.player || e.inView(viewLeft, viewTop, viewRight, viewBottom)) {
+				e.updateImage();
+				if (e != game.player && e.hiddenBy(mask))
+					continue;
+				Sprite s = add(e);
+				if (e == game.player)
+					player = s;
+			}
+		}
+	}
+
+	/**
+	 * Adds an entity's sprite, reusing an old one if there is one.
+	 * 
+	 * @param e
+	 * the entity
+	 * @return
+	 * the sprite
+	 */
+	private Sprite add(Entity e) {
+		if (count == sprites.size())
+			sprites.add(new Sprite());
+		Sprite s = sprites.get(count++);
+		s.image = e.currentImage;
+		s.lastX = e.lastLoc.x;
+		s.lastY = e.lastLoc.y;
+		s.x = e.loc.x;
+		s.y = e.loc.y;
+		s.size = e.size;
+		s.hp = e.hp;
+		s.maxhp = e.maxhp;
+		s.isAlive = e.isAlive;
+		return s;
+	}
+
+	// --------------------------------------------------------- DRAWING
+
+	/**
+	 * Draws the sprites the same way Game.renderEntities() draws entities.
+	 * 
+	 * @param g
+	 * the graphics object used to draw
+	 * @param xOffset
+	 * the camera's bigXOffset
+	 * @param yOffset
+	 * the camera's bigYOffset
+	 * @param t
+	 * how far the frame is between updates (0 to 1)
+	 * @param tileRes
+	 * the size of a tile
+	 */
+	public void render(Graphics g, int xOffset, int yOffset, double t, int tileRes) {
+		for (int i = 0; i < count; i++) {
+			Sprite s = sprites.get(i);
+			if (s.image == null)
+				continue;
+			double x = s.drawX(t, tileRes);
+			double y = s.drawY(t, tileRes);
+			g.drawImage(s.image, (int) (x - xOffset - s.image.getWidth(null) / 2), (int) (y - yOffset - (s.image.getHeight(null) - tileRes / 2)), null);
+
+			// health
+			if (s.isAlive && s.hp < s.maxhp && s.hp > 0) {
+				int hpX = (int) (x - xOffset - s.size / 2);
+				int hpY = (int) (y - yOffset + tileRes / 3);
+				Color original = g.getColor();
+				g.setColor(Color.BLACK);
+				g.fillRect(hpX, hpY, s.size, 2);
+				g.setColor(Color.RED);
+				g.fillRect(hpX, hpY, (int) (s.size * ((double) s.hp / s.maxhp)), 2);
+				g.setColor(original);
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package game.graphics;
+
+import game.Game;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Passes snapshots from the simulation thread to the render thread without locking. Three snapshots are reused: one being taken, one
+ * being drawn and the newest finished one waiting in between.
+ * 
+ * @author Anthony DePaul
+ */
+public class SnapshotBuffer {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** Only used by the simulation thread */
+	private Snapshot back = new Snapshot();
+	/** The newest finished snapshot */
+	private AtomicReference<Snapshot> ready = new AtomicReference<Snapshot>(new Snapshot());
+	/** Only used by the render thread */
+	private Snapshot front = new Snapshot();
+	/** Amount of snapshots published */
+	private long published = 0;
+
+	// --------------------------------------------------------- METHODS
+
+	/**
+	 * Takes a snapshot of the game and makes it the newest one. Only call from the simulation thread.
+	 * 
+	 * @param game
+	 * the game to copy
+	 */
+	public void publish(Game game) {
+		back.take(game);
+		back.tick = published++;
+		back = ready.getAndSet(back);
+	}
+
+	/**
+	 * Gets the newest snapshot. It won't change until the next call. Only call from the render thread.
+	 * 
+	 * @return
+	 * the newest snapshot, null if none have been taken yet
+	 */
+	public Snapshot latest() {
+		if (ready.get().tick > front.tick)
+			front = ready.getAndSet(front);
+		return front.tick < 0 ? null : front;
+	}
+}
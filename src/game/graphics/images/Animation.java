@@ -92,6 +92,14 @@ public class Animation {
 		startTick = (int) game.data.animationTick;
 	}
 
+	/**
+	 * Stops the animation and puts it back to how it was made.
+	 */
+	public void rewind() {
+		playing = false;
+		startTick = 0;
+	}
+
 	/**
 	 * Gets the current image of the animation.
 	 * 
@@ -50,7 +50,8 @@ public class CustomAnimation extends Animation {
 			locs = new Point[frames];
 			for (int i = 0; i < frames; i++)
 				locs[i] = new Point(0, i * (height / game.data.TILE_RES));
-			
+			images.cutAll(width / game.data.TILE_RES, height / game.data.TILE_RES);
+
 		} catch (Exception e) { // gif
 			isGif = true;
 			gif = GraphicLoader.getImageIcon(path + ".gif");
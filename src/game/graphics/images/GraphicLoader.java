@@ -3,9 +3,23 @@ package game.graphics.images;
 import game.Game;
 
 import java.awt.Image;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
@@ -19,6 +33,31 @@ public class GraphicLoader {
 
 	// --------------------------------------------------------- VARIABLE DECLARATIONS
 
+	/** If images are decoded on background threads (-Dgame.parallelLoading=false to load everything on the calling thread) */
+	public static boolean parallelLoading = !"false".equals(System.getProperty("game.parallelLoading"));
+	/** Threads that decode images, one per processor */
+	private static final ExecutorService LOADERS = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Loader-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	/** Tasks loading the menu images */
+	private ArrayList<Future<?>> menuTasks = new ArrayList<Future<?>>();
+	/** Tasks loading everything else */
+	private ArrayList<Future<?>> gameTasks = new ArrayList<Future<?>>();
+	/** How many tasks have finished */
+	private AtomicInteger done = new AtomicInteger();
+	/** Images of the friendlies loaded so far, by their folder in entities/friendly */
+	private ConcurrentHashMap<Integer, ImageSheet> friendlies = new ConcurrentHashMap<Integer, ImageSheet>();
+	/** Every animation loaded, so they can be rewound when the game resets */
+	private List<CustomAnimation> animations = Collections.synchronizedList(new ArrayList<CustomAnimation>());
+
 	// --- menus --- //
 	// main
 	public Image mainPlayButton, mainQuitButton, mainControlsButton, mainBackground;
@@ -62,13 +101,26 @@ public class GraphicLoader {
 	public ImageSheet destructible1, destructible2, destructible3;
 
 	/**
-	 * Gets an image from a path.
+	 * Gets an image from a path in the format the screen uses.
 	 * 
 	 * @param path
 	 * location of image
 	 * @return Image object of the image at that location
 	 */
 	public static Image getImage(String path) {
+		return getImage(path, true);
+	}
+
+	/**
+	 * Gets an image from a path.
+	 * 
+	 * @param path
+	 * location of image
+	 * @param compatible
+	 * if the image should be converted to the format the screen uses (leave false if the exact colors are needed)
+	 * @return Image object of the image at that location
+	 */
+	public static Image getImage(String path, boolean compatible) {
 		File f = null;
 
 		try {
@@ -79,7 +131,10 @@ public class GraphicLoader {
 
 		String finalpath = f.getParent() + "/game_resources/" + path;
 		try {
-			return ImageIO.read(new File(finalpath));
+			BufferedImage img = ImageIO.read(new File(finalpath));
+			if (compatible && img != null)
+				return Game.toCompatibleImage(img);
+			return img;
 		} catch (IOException e2) {
 			if (!finalpath.contains("zone"))
 				e2.printStackTrace();
@@ -87,6 +142,24 @@ public class GraphicLoader {
 		return null;
 	}
 
+	/**
+	 * Gets a file in game_resources.
+	 * 
+	 * @param path
+	 * location of the file inside game_resources
+	 * @return
+	 * the file (may not exist)
+	 */
+	public static File getResource(String path) {
+		File f = null;
+		try {
+			f = new File(Game.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath());
+		} catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+		return new File(f.getParent() + "/game_resources/" + path);
+	}
+
 	/**
 	 * Gets an imageicon from a path.
 	 * 
@@ -106,98 +179,324 @@ public class GraphicLoader {
 		return new ImageIcon(finalpath);
 	}
 
+	/**
+	 * Starts a task on the loader threads (or runs it right away if parallelLoading is off).
+	 * 
+	 * @param task
+	 * the task to run
+	 * @return
+	 * the result of the task once it is done
+	 */
+	public static <T> Future<T> submit(Callable<T> task) {
+		FutureTask<T> future = new FutureTask<T>(task);
+		run(future);
+		return future;
+	}
+
+	/**
+	 * Waits for a task from the loader threads and gives its result.
+	 * 
+	 * @param task
+	 * the task to wait for
+	 * @return
+	 * the result of the task
+	 */
+	public static <T> T await(Future<T> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Runs a task on the loader threads, or right away if parallelLoading is off.
+	 * 
+	 * @param task
+	 * the task to run
+	 */
+	private static void run(FutureTask<?> task) {
+		if (parallelLoading)
+			LOADERS.execute(task);
+		else
+			task.run();
+	}
+
+	/**
+	 * Loads an animation and keeps track of it.
+	 * 
+	 * @return
+	 * the animation
+	 */
+	private CustomAnimation animation(Game game, String path, int h, boolean l) {
+		CustomAnimation a = new CustomAnimation(game, path, h, l);
+		animations.add(a);
+		return a;
+	}
+
+	/**
+	 * Puts every animation back to how it was loaded. The tick counters start over on a reset, so an animation started in the last game
+	 * would be ahead of them.
+	 */
+	public void rewindAnimations() {
+		synchronized (animations) {
+			for (CustomAnimation a : animations)
+				a.rewind();
+		}
+	}
+
+	/**
+	 * Gets the images of a friendly, loading them the first time.
+	 * 
+	 * @param game
+	 * the game the images are in
+	 * @param id
+	 * the friendly's folder in entities/friendly
+	 * @return
+	 * the images of the friendly
+	 */
+	public ImageSheet getFriendly(final Game game, int id) {
+		// zones are read in parallel, only one of them loads a shared friendly
+		return friendlies.computeIfAbsent(id, new Function<Integer, ImageSheet>() {
+			@Override
+			public ImageSheet apply(Integer folder) {
+				return new ImageSheet(game, "entities/friendly/" + folder + "/main.png");
+			}
+		});
+	}
+
+	// --------------------------------------------------------- PROGRESS
+
+	/**
+	 * Adds a task to a group and starts it.
+	 * 
+	 * @param group
+	 * menuTasks or gameTasks
+	 * @param r
+	 * what the task loads
+	 */
+	private void load(ArrayList<Future<?>> group, final Runnable r) {
+		FutureTask<Object> task = new FutureTask<Object>(new Runnable() {
+			@Override
+			public void run() {
+				r.run();
+				done.incrementAndGet();
+			}
+		}, null);
+		group.add(task);
+		run(task);
+	}
+
+	/**
+	 * Waits until the menu images are loaded.
+	 */
+	public void waitForMenus() {
+		for (Future<?> task : menuTasks)
+			await(task);
+	}
+
+	/**
+	 * Waits until every image is loaded.
+	 */
+	public void waitForAll() {
+		waitForMenus();
+		for (Future<?> task : gameTasks)
+			await(task);
+	}
+
+	/**
+	 * @return
+	 * how many loading tasks have finished
+	 */
+	public int loaded() {
+		return done.get();
+	}
+
+	/**
+	 * @return
+	 * how many loading tasks there are
+	 */
+	public int total() {
+		return menuTasks.size() + gameTasks.size();
+	}
+
 	// --------------------------------------------------------- INIT
 
 	/**
-	 * Initializes all images/animations needed throughout the game.
+	 * Starts loading all images/animations needed throughout the game on the loader threads. The menus are loaded first, use waitForMenus
+	 * and waitForAll before using them.
 	 */
-	public GraphicLoader(Game game) {
+	public GraphicLoader(final Game game) {
 
 		// --- menus --- //
 		// main
-		mainPlayButton = getImage("menus/main/play.png");
-		mainQuitButton = getImage("menus/main/quit.png");
-		mainControlsButton = getImage("menus/main/controls.png");
-		mainBackground = getImage("menus/main/background.png");
+		load(menuTasks, new Runnable() {
+			@Override
+			public void run() {
+				mainPlayButton = getImage("menus/main/play.png");
+				mainQuitButton = getImage("menus/main/quit.png");
+				mainControlsButton = getImage("menus/main/controls.png");
+				mainBackground = getImage("menus/main/background.png");
+			}
+		});
 		// pause
-		pauseBackground = getImage("menus/pause/background.png");
-		pauseMainMenuButton = getImage("menus/pause/main_menu.png");
-		pauseResumeButton = getImage("menus/pause/resume.png");
-		pauseSelector = getImage("menus/pause/selector.png");
-		// win
-		winBackground = getImage("menus/win/background.png");
-		winMainMenuButton = getImage("menus/win/main_menu.png");
-		// lose
-		loseMainMenuButton = getImage("menus/lose/main_menu.png");
-		loseBackground = getImage("menus/lose/background.png");
-		// scene
-		sceneBackground = getImage("menus/scene/background.png");
+		load(menuTasks, new Runnable() {
+			@Override
+			public void run() {
+				pauseBackground = getImage("menus/pause/background.png");
+				pauseMainMenuButton = getImage("menus/pause/main_menu.png");
+				pauseResumeButton = getImage("menus/pause/resume.png");
+				pauseSelector = getImage("menus/pause/selector.png");
+			}
+		});
+		// win, lose and scene
+		load(menuTasks, new Runnable() {
+			@Override
+			public void run() {
+				winBackground = getImage("menus/win/background.png");
+				winMainMenuButton = getImage("menus/win/main_menu.png");
+				loseMainMenuButton = getImage("menus/lose/main_menu.png");
+				loseBackground = getImage("menus/lose/background.png");
+				sceneBackground = getImage("menus/scene/background.png");
+			}
+		});
 		// controls
-		controlsBackground = getImage("menus/controls/background.png"); 
-		controlsMainMenuButton = getImage("menus/controls/main_menu.png");
+		load(menuTasks, new Runnable() {
+			@Override
+			public void run() {
+				controlsBackground = getImage("menus/controls/background.png");
+				controlsMainMenuButton = getImage("menus/controls/main_menu.png");
+			}
+		});
 
 		// --- creatures --- //
 		// player
-		player = new ImageSheet(game, "entities/player/main.png");
-		playerJumpN = new CustomAnimation(game, "entities/player/jump/N", 2, false);
-		playerJumpE = new CustomAnimation(game, "entities/player/jump/E", 2, false);
-		playerJumpS = new CustomAnimation(game, "entities/player/jump/S", 2, false);
-		playerJumpW = new CustomAnimation(game, "entities/player/jump/W", 2, false);
-		playerWalkN = new CustomAnimation(game, "entities/player/walk/N", 2, true);
-		playerWalkE = new CustomAnimation(game, "entities/player/walk/E", 2, true);
-		playerWalkS = new CustomAnimation(game, "entities/player/walk/S", 2, true);
-		playerWalkW = new CustomAnimation(game, "entities/player/walk/W", 2, true);
-		playerAttackNI = new CustomAnimation(game, "entities/player/attackI/N", 3, false);
-		playerAttackEI = new CustomAnimation(game, "entities/player/attackI/E", 3, false);
-		playerAttackSI = new CustomAnimation(game, "entities/player/attackI/S", 3, false);
-		playerAttackWI = new CustomAnimation(game, "entities/player/attackI/W", 3, false);
-		playerAttackNII = new CustomAnimation(game, "entities/player/attackII/N", 3, false);
-		playerAttackEII = new CustomAnimation(game, "entities/player/attackII/E", 3, false);
-		playerAttackSII = new CustomAnimation(game, "entities/player/attackII/S", 3, false);
-		playerAttackWII = new CustomAnimation(game, "entities/player/attackII/W", 3, false);
-		playerAttackNIII = new CustomAnimation(game, "entities/player/attackIII/N", 3, false);
-		playerAttackEIII = new CustomAnimation(game, "entities/player/attackIII/E", 3, false);
-		playerAttackSIII = new CustomAnimation(game, "entities/player/attackIII/S", 3, false);
-		playerAttackWIII = new CustomAnimation(game, "entities/player/attackIII/W", 3, false);
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				player = new ImageSheet(game, "entities/player/main.png");
+			}
+		});
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				playerJumpN = animation(game, "entities/player/jump/N", 2, false);
+				playerJumpE = animation(game, "entities/player/jump/E", 2, false);
+				playerJumpS = animation(game, "entities/player/jump/S", 2, false);
+				playerJumpW = animation(game, "entities/player/jump/W", 2, false);
+			}
+		});
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				playerWalkN = animation(game, "entities/player/walk/N", 2, true);
+				playerWalkE = animation(game, "entities/player/walk/E", 2, true);
+				playerWalkS = animation(game, "entities/player/walk/S", 2, true);
+				playerWalkW = animation(game, "entities/player/walk/W", 2, true);
+			}
+		});
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				playerAttackNI = animation(game, "entities/player/attackI/N", 3, false);
+				playerAttackEI = animation(game, "entities/player/attackI/E", 3, false);
+				playerAttackSI = animation(game, "entities/player/attackI/S", 3, false);
+				playerAttackWI = animation(game, "entities/player/attackI/W", 3, false);
+			}
+		});
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				playerAttackNII = animation(game, "entities/player/attackII/N", 3, false);
+				playerAttackEII = animation(game, "entities/player/attackII/E", 3, false);
+				playerAttackSII = animation(game, "entities/player/attackII/S", 3, false);
+				playerAttackWII = animation(game, "entities/player/attackII/W", 3, false);
+			}
+		});
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				playerAttackNIII = animation(game, "entities/player/attackIII/N", 3, false);
+				playerAttackEIII = animation(game, "entities/player/attackIII/E", 3, false);
+				playerAttackSIII = animation(game, "entities/player/attackIII/S", 3, false);
+				playerAttackWIII = animation(game, "entities/player/attackIII/W", 3, false);
+			}
+		});
 		// basic enemy
-		basicenemy = new ImageSheet(game, "entities/basic_enemy/main.png");
-		basicEnemyWalkN = new CustomAnimation(game, "entities/basic_enemy/walk/N", 2, true);
-		basicEnemyWalkE = new CustomAnimation(game, "entities/basic_enemy/walk/E", 2, true);
-		basicEnemyWalkS = new CustomAnimation(game, "entities/basic_enemy/walk/S", 2, true);
-		basicEnemyWalkW = new CustomAnimation(game, "entities/basic_enemy/walk/W", 2, true);
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				basicenemy = new ImageSheet(game, "entities/basic_enemy/main.png");
+				basicEnemyWalkN = animation(game, "entities/basic_enemy/walk/N", 2, true);
+				basicEnemyWalkE = animation(game, "entities/basic_enemy/walk/E", 2, true);
+				basicEnemyWalkS = animation(game, "entities/basic_enemy/walk/S", 2, true);
+				basicEnemyWalkW = animation(game, "entities/basic_enemy/walk/W", 2, true);
+			}
+		});
 		// mini boss
-		miniBoss = new ImageSheet(game, "entities/mini_boss/main.png");
-		miniBossWalkN = new CustomAnimation(game, "entities/mini_boss/walk/N", 3, true);
-		miniBossWalkE = new CustomAnimation(game, "entities/mini_boss/walk/E", 3, true);
-		miniBossWalkS = new CustomAnimation(game, "entities/mini_boss/walk/S", 3, true);
-		miniBossWalkW = new CustomAnimation(game, "entities/mini_boss/walk/W", 3, true);
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				miniBoss = new ImageSheet(game, "entities/mini_boss/main.png");
+				miniBossWalkN = animation(game, "entities/mini_boss/walk/N", 3, true);
+				miniBossWalkE = animation(game, "entities/mini_boss/walk/E", 3, true);
+				miniBossWalkS = animation(game, "entities/mini_boss/walk/S", 3, true);
+				miniBossWalkW = animation(game, "entities/mini_boss/walk/W", 3, true);
+			}
+		});
 		// final boss
-		finalBoss = new ImageSheet(game, "entities/final_boss/main.png");
-		finalBossWalkN = new CustomAnimation(game, "entities/final_boss/walk/N", 3, true);
-		finalBossWalkE = new CustomAnimation(game, "entities/final_boss/walk/E", 3, true);
-		finalBossWalkS = new CustomAnimation(game, "entities/final_boss/walk/S", 3, true);
-		finalBossWalkW = new CustomAnimation(game, "entities/final_boss/walk/W", 3, true);
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				finalBoss = new ImageSheet(game, "entities/final_boss/main.png");
+				finalBossWalkN = animation(game, "entities/final_boss/walk/N", 3, true);
+				finalBossWalkE = animation(game, "entities/final_boss/walk/E", 3, true);
+				finalBossWalkS = animation(game, "entities/final_boss/walk/S", 3, true);
+				finalBossWalkW = animation(game, "entities/final_boss/walk/W", 3, true);
+			}
+		});
 
 		// --- environment --- //
-		// items
-		blankItem = getImage("entities/items/blank.png");
-		swordI = getImage("entities/items/sword_i.png");
-		swordII = getImage("entities/items/sword_ii.png");
-		swordIII = getImage("entities/items/sword_iii.png");
-		keyI = getImage("entities/items/key_i.png");
-		keyII = getImage("entities/items/key_ii.png");
-		keyIII = getImage("entities/items/key_iii.png");
-		// money
-		moneyI = getImage("entities/items/money_i.png");
-		moneyII = getImage("entities/items/money_ii.png");
-		moneyIII = getImage("entities/items/money_iii.png");
+		// items and money
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				blankItem = getImage("entities/items/blank.png");
+				swordI = getImage("entities/items/sword_i.png");
+				swordII = getImage("entities/items/sword_ii.png");
+				swordIII = getImage("entities/items/sword_iii.png");
+				keyI = getImage("entities/items/key_i.png");
+				keyII = getImage("entities/items/key_ii.png");
+				keyIII = getImage("entities/items/key_iii.png");
+				moneyI = getImage("entities/items/money_i.png");
+				moneyII = getImage("entities/items/money_ii.png");
+				moneyIII = getImage("entities/items/money_iii.png");
+			}
+		});
 		// tiles
-		lockI = new ImageSheet(game, "zones/tiles/lock_i.png");
-		lockII = new ImageSheet(game, "zones/tiles/lock_ii.png");
-		lockIII = new ImageSheet(game, "zones/tiles/lock_iii.png");
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				lockI = new ImageSheet(game, "zones/tiles/lock_i.png");
+				lockII = new ImageSheet(game, "zones/tiles/lock_ii.png");
+				lockIII = new ImageSheet(game, "zones/tiles/lock_iii.png");
+				for (ImageSheet lock : new ImageSheet[] { lockI, lockII, lockIII }) {
+					lock.bakeRotations(0, 0, 1, 1); // locked
+					lock.bakeRotations(0, 1, 1, 1); // unlocked
+				}
+			}
+		});
 		// destructibles
-		destructible1 = new ImageSheet(game, "entities/destructables/object1.png");
-		destructible2 = new ImageSheet(game, "entities/destructables/object2.png");
-		destructible3 = new ImageSheet(game, "entities/destructables/object3.png");
+		load(gameTasks, new Runnable() {
+			@Override
+			public void run() {
+				destructible1 = new ImageSheet(game, "entities/destructables/object1.png");
+				destructible2 = new ImageSheet(game, "entities/destructables/object2.png");
+				destructible3 = new ImageSheet(game, "entities/destructables/object3.png");
+			}
+		});
 	}
-}
\ No newline at end of file
+}
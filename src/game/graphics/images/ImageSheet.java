@@ -1,9 +1,11 @@
 package game.graphics.images;
 
+import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
 
 import game.Game;
+import game.enums.Direction;
 
 /**
  * An image with special functions that utilizes a grid where each square is game.data.TILE_RES x game.data.TILE_RES.
@@ -14,8 +16,15 @@ public class ImageSheet {
 
 	/** The game this class will refer to */
 	private Game game;
+	/** If cells are copied into their own images instead of sharing the sheet's pixels (-Dgame.copyCells=false to share them) */
+	public static boolean copyCells = !"false".equals(System.getProperty("game.copyCells"));
+
 	/** The big sheet image this class uses */
 	public BufferedImage image;
+	/** Cells already cut out of the sheet, indexed by height, width, row and then column */
+	private Image[][][][] cells;
+	/** Rotated copies of cells, indexed by the row and column the cell starts at */
+	private RotatedCell[][] rotations;
 
 	/**
 	 * An image with special functions that utilizes a grid where each square is game.data.TILE_RES x game.data.TILE_RES.
@@ -58,6 +67,128 @@ public class ImageSheet {
 	 * the width x height image at location x, y
 	 */
 	public Image grabImage(int x, int y, int width, int height) {
-		return image.getSubimage(x * game.data.TILE_RES, y * game.data.TILE_RES, game.data.TILE_RES * width, game.data.TILE_RES * height);
+		if (cells == null)
+			cells = new Image[image.getHeight() / game.data.TILE_RES + 1][image.getWidth() / game.data.TILE_RES + 1][][];
+		if (cells[height][width] == null)
+			cells[height][width] = new Image[image.getHeight() / game.data.TILE_RES][image.getWidth() / game.data.TILE_RES];
+
+		Image temp = cells[height][width][y][x];
+		if (temp == null) {
+			temp = cutCell(x, y, width, height);
+			cells[height][width][y][x] = temp;
+		}
+		return temp;
+	}
+
+	/**
+	 * Cuts the image at the designated location out of the sheet.
+	 * 
+	 * @param x
+	 * column the image is in (starting at 0)
+	 * @param y
+	 * row the image is in (starting at 0)
+	 * @param width
+	 * how many grid squares wide
+	 * @param height
+	 * how many grid squares high
+	 * @return
+	 * the width x height image at location x, y
+	 */
+	private Image cutCell(int x, int y, int width, int height) {
+		BufferedImage sub = image.getSubimage(x * game.data.TILE_RES, y * game.data.TILE_RES, game.data.TILE_RES * width, game.data.TILE_RES * height);
+		if (!copyCells)
+			return sub;
+
+		BufferedImage copy = Game.createCompatibleImage(sub.getWidth(), sub.getHeight());
+		Graphics2D g = copy.createGraphics();
+		g.drawImage(sub, 0, 0, null);
+		g.dispose();
+		return copy;
+	}
+
+	/**
+	 * Cuts every cell of the specified size out of the sheet ahead of time.
+	 * 
+	 * @param width
+	 * how many grid squares wide
+	 * @param height
+	 * how many grid squares high
+	 */
+	public void cutAll(int width, int height) {
+		for (int y = 0; y + height <= image.getHeight() / game.data.TILE_RES; y += height)
+			for (int x = 0; x + width <= image.getWidth() / game.data.TILE_RES; x += width)
+				grabImage(x, y, width, height);
+	}
+
+	/**
+	 * Gets the image at the designated location according to the grid rotated to face a direction. North is not rotated. The rotations are
+	 * made the first time they are needed (or by {@link #bakeRotations(int, int, int, int)}) and reused after that.
+	 * 
+	 * @param x
+	 * column the image is in (starting at 0)
+	 * @param y
+	 * row the image is in (starting at 0)
+	 * @param width
+	 * how many grid squares wide
+	 * @param height
+	 * how many grid squares high
+	 * @param dir
+	 * the direction the image should face
+	 * @return
+	 * the rotated width x height image at location x, y
+	 */
+	public Image grabRotated(int x, int y, int width, int height, Direction dir) {
+		if (rotations == null || rotations[y][x] == null || rotations[y][x].width != width || rotations[y][x].height != height)
+			bakeRotations(x, y, width, height);
+		return rotations[y][x].images[dir.ordinal()];
+	}
+
+	/**
+	 * Creates the four rotations of the image at the designated location according to the grid.
+	 * 
+	 * @param x
+	 * column the image is in (starting at 0)
+	 * @param y
+	 * row the image is in (starting at 0)
+	 * @param width
+	 * how many grid squares wide
+	 * @param height
+	 * how many grid squares high
+	 */
+	public void bakeRotations(int x, int y, int width, int height) {
+		if (rotations == null)
+			rotations = new RotatedCell[image.getHeight() / game.data.TILE_RES][image.getWidth() / game.data.TILE_RES];
+
+		Image cell = grabImage(x, y, width, height);
+		int w = width * game.data.TILE_RES;
+		int h = height * game.data.TILE_RES;
+
+		RotatedCell temp = new RotatedCell(width, height);
+		for (Direction dir : Direction.values()) {
+			BufferedImage rotated = Game.createCompatibleImage(w, h);
+			Graphics2D g = rotated.createGraphics();
+			g.rotate(Math.toRadians(dir.ordinal() * 90), w / 2.0, h / 2.0);
+			g.drawImage(cell, 0, 0, null);
+			g.dispose();
+			temp.images[dir.ordinal()] = rotated;
+		}
+		rotations[y][x] = temp;
+	}
+
+	/**
+	 * The four rotations of one cell.
+	 */
+	private class RotatedCell {
+		/** How many grid squares wide the cell is */
+		public int width;
+		/** How many grid squares high the cell is */
+		public int height;
+		/** The rotated images in the order of {@link Direction} */
+		public Image[] images = new Image[Direction.values().length];
+
+		public RotatedCell(int width, int height) {
+			this.width = width;
+			this.height = height;
+		}
 	}
-}
\ No newline at end of file
+}
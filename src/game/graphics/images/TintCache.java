@@ -0,0 +1,129 @@
+package game.graphics.images;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import game.Game;
+
+/**
+ * Keeps tinted copies of images so each one only has to be tinted once.
+ * 
+ * @author Anthony DePaul
+ */
+public class TintCache {
+
+	// --------------------------------------------------------- VARIABLE DECLARATIONS
+
+	/** The color images are tinted */
+	private Color color;
+	/** The most tinted images kept before the least recently used one is thrown out */
+	private final int MAX_SIZE;
+	/** Tinted images keyed by the image they were made from */
+	private LinkedHashMap<Image, BufferedImage> tinted;
+
+	/** Amount of times a tinted image was already made */
+	public long hits = 0;
+	/** Amount of times a tinted image had to be made */
+	public long misses = 0;
+
+	// --------------------------------------------------------- CONSTRUCTORS
+
+	/**
+	 * Keeps tinted copies of images so each one only has to be tinted once.
+	 * 
+	 * @param c
+	 * the color images are tinted (alpha is ignored)
+	 * @param max
+	 * the most tinted images kept at once
+	 */
+	public TintCache(Color c, int max) {
+		color = new Color(c.getRed(), c.getGreen(), c.getBlue());
+		MAX_SIZE = max;
+		tinted = new LinkedHashMap<Image, BufferedImage>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Image, BufferedImage> eldest) {
+				if (size() > MAX_SIZE) {
+					eldest.getValue().flush();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Gets the tinted version of an image, making it if it hasn't been made yet.
+	 * 
+	 * @param img
+	 * any image
+	 * @return
+	 * the tinted image
+	 */
+	public BufferedImage get(Image img) {
+		// gifs change frames without changing the image object so they can't be kept
+		if (!(img instanceof BufferedImage))
+			return tint(img, color);
+
+		BufferedImage temp = tinted.get(img);
+		if (temp != null) {
+			hits++;
+			return temp;
+		}
+		misses++;
+		temp = tint(img, color);
+		tinted.put(img, temp);
+		return temp;
+	}
+
+	/**
+	 * Throws out all of the tinted images.
+	 */
+	public void clear() {
+		for (BufferedImage temp : tinted.values())
+			temp.flush();
+		tinted.clear();
+	}
+
+	/**
+	 * Amount of tinted images currently kept.
+	 * 
+	 * @return
+	 * the amount of tinted images
+	 */
+	public int size() {
+		return tinted.size();
+	}
+
+	/**
+	 * Makes an image a single color while maintaining alpha values.
+	 * 
+	 * @param img
+	 * any image
+	 * @param c
+	 * the color to make the image
+	 * @return
+	 * the tinted image
+	 */
+	public static BufferedImage tint(Image img, Color c) {
+		BufferedImage newImg = Game.createCompatibleImage(img.getWidth(null), img.getHeight(null));
+		Graphics2D g = newImg.createGraphics();
+		g.drawImage(img, 0, 0, null);
+		g.dispose();
+
+		// every pixel at once, keeping the alpha and replacing the color
+		int width = newImg.getWidth();
+		int height = newImg.getHeight();
+		int[] pixels = newImg.getRGB(0, 0, width, height, null, 0, width);
+		int rgb = c.getRGB() & 0x00FFFFFF;
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = (pixels[i] & 0xFF000000) | rgb;
+		newImg.setRGB(0, 0, width, height, pixels, 0, width);
+		return newImg;
+	}
+}
@@ -7,7 +7,6 @@ import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 
 import game.Game;
-import game.GameLauncher;
 
 /**
  * A simple button that can be used to activate things. (Must be integrated with a MouseHandler class)
@@ -102,7 +101,7 @@ public class Button {
 	public void update(MouseEvent e, Status s) {
 		int x, y;
 
-		if (!GameLauncher.isApplet) {
+		if (game.frame != null) { // not an applet
 			int xOffset = (int) (game.data.frameXOffset / game.data.scale);
 			int yOffset = (int) (game.data.frameYOffset / game.data.scale);
 			x = (int) (e.getX() / game.data.scale) - xOffset;
@@ -0,0 +1,57 @@
+package game.graphics.screens;
+
+import game.Game;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+
+/**
+ * What is displayed when play is pressed before the game is done loading.
+ * 
+ * @author Anthony DePaul
+ */
+public class LoadingScreen {
+
+	/** The game the loading screen is in */
+	private Game game;
+
+	/**
+	 * What is displayed when play is pressed before the game is done loading.
+	 * 
+	 * @param g
+	 * the game the loading screen is in
+	 */
+	public LoadingScreen(Game g) {
+		game = g;
+	}
+
+	/**
+	 * Draws the loading screen
+	 * 
+	 * @param g
+	 * the graphics object to draw on
+	 */
+	public void render(Graphics2D g) {
+		g.drawImage(game.images.mainBackground, 0, 0, null);
+
+		int width = (int) (game.data.WIDTH * .5);
+		int height = game.data.TILE_RES / 2;
+		int x = (game.data.WIDTH - width) / 2;
+		int y = (int) (game.data.HEIGHT * .9) - height / 2;
+
+		// bar
+		g.setColor(new Color(0, 22, 51));
+		g.fillRect(x, y, width, height);
+		g.setColor(Color.WHITE);
+		g.fillRect(x, y, (int) (width * game.loadingProgress()), height);
+		g.drawRect(x, y, width, height);
+
+		// text
+		Font font = new Font("Monospaced", Font.BOLD, height);
+		FontMetrics metrics = g.getFontMetrics(font);
+		g.setFont(font);
+		g.drawString("Loading", (game.data.WIDTH - metrics.stringWidth("Loading")) / 2, y - metrics.getDescent() - height / 2);
+	}
+}
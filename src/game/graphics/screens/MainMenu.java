@@ -66,9 +66,9 @@ public class MainMenu {
 	 * Makes a main menu buttons do what they do when activated.
 	 */
 	public void update() {
-		// play
+		// play (waits on the loading screen if the zones aren't ready yet)
 		if (play.activated) {
-			game.data.status = GameState.PLAYING;
+			game.data.status = game.loaded ? GameState.PLAYING : GameState.LOADING;
 			play.activated = false;
 		}
 		// quit